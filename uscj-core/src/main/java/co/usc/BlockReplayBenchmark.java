@@ -0,0 +1,203 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc;
+
+import co.usc.blocks.BinaryBlockPlayer;
+import co.usc.blocks.BlockPlayer;
+import co.usc.blocks.FileBlockPlayer;
+import co.usc.cli.CliArgs;
+import co.usc.config.ConfigLoader;
+import co.usc.config.NodeCliFlags;
+import co.usc.config.NodeCliOptions;
+import co.usc.config.UscSystemProperties;
+import co.usc.core.bc.*;
+import co.usc.db.RepositoryImpl;
+import co.usc.trie.TrieStoreImpl;
+import co.usc.validators.BlockValidator;
+import org.ethereum.config.CommonConfig;
+import org.ethereum.config.DefaultConfig;
+import org.ethereum.core.Block;
+import org.ethereum.core.ImportResult;
+import org.ethereum.core.Repository;
+import org.ethereum.core.genesis.BlockChainLoader;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.*;
+import org.ethereum.listener.EthereumListener;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.util.FileUtil;
+import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Replays a recorded block range into a fresh blockchain and reports the import throughput,
+ * and where the import time goes.
+ *
+ * Usage: BlockReplayBenchmark [--testnet|--regtest|...] recording [from] [to] [memory|leveldb]
+ *
+ * The recording is a file written by blocks.recorder, text or binary, starting at the genesis of the
+ * selected network. The blocks before from are imported to build the state, and are not measured.
+ * The leveldb backend works in a temporary directory, deleted at the end.
+ */
+public class BlockReplayBenchmark {
+    private final UscSystemProperties config;
+    private final boolean onDisk;
+
+    public static void main(String[] args) throws Exception {
+        CliArgs<NodeCliOptions, NodeCliFlags> cliArgs = new CliArgs.Parser<>(
+                NodeCliOptions.class,
+                NodeCliFlags.class
+        ).parse(args);
+
+        List<String> arguments = cliArgs.getArguments();
+
+        if (arguments.isEmpty()) {
+            System.out.println("Usage: BlockReplayBenchmark [--testnet|--regtest|...] recording [from] [to] [memory|leveldb]");
+            return;
+        }
+
+        String recording = arguments.get(0);
+        long from = arguments.size() > 1 ? Long.parseLong(arguments.get(1)) : 1;
+        long to = arguments.size() > 2 ? Long.parseLong(arguments.get(2)) : Long.MAX_VALUE;
+        boolean onDisk = arguments.size() > 3 && "leveldb".equals(arguments.get(3));
+
+        UscSystemProperties config = new UscSystemProperties(new ConfigLoader(cliArgs));
+
+        new BlockReplayBenchmark(config, onDisk).run(recording, from, to);
+    }
+
+    public BlockReplayBenchmark(UscSystemProperties config, boolean onDisk) {
+        this.config = config;
+        this.onDisk = onDisk;
+    }
+
+    public void run(String recording, long from, long to) throws Exception {
+        String databaseDir = this.onDisk ? Files.createTempDirectory("blockreplay").toString() : null;
+
+        try (AutoCloseable player = openPlayer(recording)) {
+            BlockChainImpl blockchain = buildBlockchain(databaseDir);
+            replay((BlockPlayer) player, blockchain, from, to);
+        }
+        finally {
+            if (databaseDir != null) {
+                FileUtil.recursiveDelete(databaseDir);
+            }
+        }
+    }
+
+    private void replay(BlockPlayer player, BlockChainImpl blockchain, long from, long to) {
+        BlockImportStats stats = blockchain.getImportStats();
+        boolean measuring = false;
+        long measuredNanos = 0;
+        long failed = 0;
+
+        for (Block block = player.readBlock(); block != null && block.getNumber() <= to; block = player.readBlock()) {
+            if (block.getNumber() < from) {
+                blockchain.tryToConnect(block);
+                continue;
+            }
+
+            if (!measuring) {
+                stats.reset();
+                measuring = true;
+            }
+
+            long start = System.nanoTime();
+            ImportResult result = blockchain.tryToConnect(block);
+            measuredNanos += System.nanoTime() - start;
+
+            if (!result.isSuccessful()) {
+                failed++;
+            }
+        }
+
+        report(stats, measuredNanos, failed);
+    }
+
+    private void report(BlockImportStats stats, long measuredNanos, long failed) {
+        double seconds = measuredNanos / 1e9;
+
+        System.out.println(String.format("backend: %s", this.onDisk ? "leveldb" : "memory"));
+        System.out.println(String.format("blocks: %d imported, %d not imported, %.3f s", stats.getBlocks(), failed, seconds));
+
+        if (seconds <= 0) {
+            return;
+        }
+
+        System.out.println(String.format("throughput: %.1f blocks/s, %.1f txs/s, %.0f gas/s",
+                stats.getBlocks() / seconds, stats.getTransactions() / seconds, stats.getGasUsed() / seconds));
+
+        long stateRoot = stats.getStateRootNanos();
+        long other = measuredNanos - stats.getValidationNanos() - stats.getExecutionNanos()
+                - stats.getStoreNanos() - stats.getListenersNanos() - stats.getFlushNanos();
+
+        printPhase("validation", stats.getValidationNanos(), measuredNanos);
+        printPhase("execution", stats.getExecutionNanos() - stateRoot, measuredNanos);
+        printPhase("trie hashing", stateRoot, measuredNanos);
+        printPhase("store", stats.getStoreNanos(), measuredNanos);
+        printPhase("listeners", stats.getListenersNanos(), measuredNanos);
+        printPhase("flush", stats.getFlushNanos(), measuredNanos);
+        printPhase("other", other, measuredNanos);
+    }
+
+    private static void printPhase(String name, long nanos, long totalNanos) {
+        System.out.println(String.format("  %-13s %10.3f s %6.1f%%", name, nanos / 1e9, nanos * 100.0 / totalNanos));
+    }
+
+    private AutoCloseable openPlayer(String recording) {
+        if (BinaryBlockPlayer.isBinaryArchive(recording)) {
+            return new BinaryBlockPlayer(recording);
+        }
+
+        return new FileBlockPlayer(this.config, recording);
+    }
+
+    private BlockChainImpl buildBlockchain(String databaseDir) throws IOException {
+        int memoryStorageLimit = this.config.detailsInMemoryStorageLimit();
+        DefaultConfig defaultConfig = new DefaultConfig();
+
+        Repository repository;
+        BlockStore blockStore;
+        ReceiptStore receiptStore;
+
+        if (databaseDir == null) {
+            repository = new RepositoryImpl(new TrieStoreImpl(new HashMapDB()), new HashMapDB(), new TrieStorePoolOnMemory(), memoryStorageLimit);
+            blockStore = new IndexedBlockStore(new HashMap<>(), new HashMapDB(), null);
+            receiptStore = new ReceiptStoreImpl(new HashMapDB());
+        } else {
+            repository = new CommonConfig().buildRepository(databaseDir, memoryStorageLimit);
+            blockStore = defaultConfig.buildBlockStore(databaseDir);
+            receiptStore = defaultConfig.buildReceiptStore(databaseDir);
+        }
+
+        EthereumListener listener = new EthereumListenerAdapter();
+        TransactionPoolImpl transactionPool = new TransactionPoolImpl(this.config, repository, blockStore, receiptStore,
+                new ProgramInvokeFactoryImpl(), listener, 0, 0);
+        BlockValidator blockValidator = new BlockValidatorImpl(blockStore,
+                defaultConfig.blockParentDependantValidationRule(repository, this.config),
+                defaultConfig.blockValidationRule(this.config));
+
+        return new BlockChainLoader(this.config, repository, blockStore, receiptStore, transactionPool, listener,
+                blockValidator, new BlockResultCache()).loadBlockchain();
+    }
+}
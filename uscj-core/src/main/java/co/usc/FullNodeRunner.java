@@ -17,6 +17,9 @@
  */
 package co.usc;
 
+import co.usc.blocks.BinaryBlockPlayer;
+import co.usc.blocks.BinaryBlockRecorder;
+import co.usc.blocks.BlockArchiveImporter;
 import co.usc.blocks.FileBlockPlayer;
 import co.usc.blocks.FileBlockRecorder;
 import co.usc.config.UscSystemProperties;
@@ -29,6 +32,7 @@ import co.usc.bp.TxBuilder;
 import co.usc.bp.TxBuilderEx;
 import co.usc.net.*;
 import co.usc.net.discovery.UDPServer;
+import co.usc.rpc.netty.JsonRpcWorkerPool;
 import co.usc.rpc.netty.Web3HttpServer;
 import co.usc.rpc.netty.Web3WebSocketServer;
 import org.ethereum.core.*;
@@ -39,24 +43,32 @@ import org.ethereum.rpc.Web3;
 import org.ethereum.sync.SyncPool;
 import org.ethereum.util.BuildInfo;
 import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.VMProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
 public class FullNodeRunner implements NodeRunner {
     private static Logger logger = LoggerFactory.getLogger("fullnoderunner");
 
+    private static final int VM_PROFILER_TOP_CONTRACTS = 20;
+
     private final Usc usc;
     private final UDPServer udpServer;
     private final BpServer bpServer;
     private final UscSystemProperties uscSystemProperties;
     private final Web3HttpServer web3HttpServer;
     private final Web3WebSocketServer web3WebSocketServer;
+    private final JsonRpcWorkerPool jsonRpcWorkerPool;
     private final Repository repository;
     private final Blockchain blockchain;
     private final ChannelManager channelManager;
@@ -72,6 +84,8 @@ public class FullNodeRunner implements NodeRunner {
 
     private final PruneService pruneService;
 
+    private ScheduledExecutorService vmProfilerReporter;
+
     @Autowired
     public FullNodeRunner(
             Usc usc,
@@ -81,6 +95,7 @@ public class FullNodeRunner implements NodeRunner {
             Web3 web3Service,
             Web3HttpServer web3HttpServer,
             Web3WebSocketServer web3WebSocketServer,
+            JsonRpcWorkerPool jsonRpcWorkerPool,
             Repository repository,
             Blockchain blockchain,
             ChannelManager channelManager,
@@ -98,6 +113,7 @@ public class FullNodeRunner implements NodeRunner {
         this.web3HttpServer = web3HttpServer;
         this.web3Service = web3Service;
         this.web3WebSocketServer = web3WebSocketServer;
+        this.jsonRpcWorkerPool = jsonRpcWorkerPool;
         this.repository = repository;
         this.blockchain = blockchain;
         this.channelManager = channelManager;
@@ -125,6 +141,10 @@ public class FullNodeRunner implements NodeRunner {
         );
         BuildInfo.printInfo();
 
+        if (uscSystemProperties.isVmProfilerEnabled()) {
+            enableVmProfiler();
+        }
+
         transactionGateway.start();
         // this should be the genesis block at this point
         transactionPool.start(blockchain.getBestBlock());
@@ -206,6 +226,17 @@ public class FullNodeRunner implements NodeRunner {
         }
     }
 
+    private void enableVmProfiler() {
+        VMProfiler profiler = new VMProfiler();
+        VM.setVmHook(profiler);
+
+        int interval = uscSystemProperties.vmProfilerReportInterval();
+        vmProfilerReporter = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "VMProfilerReporter"));
+        vmProfilerReporter.scheduleAtFixedRate(() -> profiler.logReport(VM_PROFILER_TOP_CONTRACTS), interval, interval, TimeUnit.SECONDS);
+
+        logger.info("VM profiler enabled, reporting every {} seconds", interval);
+    }
+
     private void enableSimulateTxs() {
         new TxBuilder(uscSystemProperties, usc, nodeBlockProcessor, repository).simulateTxs();
     }
@@ -233,6 +264,10 @@ public class FullNodeRunner implements NodeRunner {
             pruneService.stop();
         }
 
+        if (vmProfilerReporter != null) {
+            vmProfilerReporter.shutdownNow();
+        }
+
         syncPool.stop();
 
         boolean rpcHttpEnabled = uscSystemProperties.isRpcHttpEnabled();
@@ -248,6 +283,10 @@ public class FullNodeRunner implements NodeRunner {
                 Thread.currentThread().interrupt();
             }
         }
+        if (rpcHttpEnabled || rpcWebSocketEnabled) {
+            // shared by both servers, so it goes once neither takes requests
+            jsonRpcWorkerPool.stop();
+        }
 
         /*
         if (rpcHttpEnabled || rpcWebSocketEnabled) {
@@ -273,11 +312,20 @@ public class FullNodeRunner implements NodeRunner {
             }
         }
 
+        // nothing adds blocks any more, the periodic flush may have left the last ones in memory
+        blockchain.close();
+
         logger.info("USC node Shut down");
     }
 
     private void setupRecorder(@Nullable String blocksRecorderFileName) {
-        if (blocksRecorderFileName != null) {
+        if (blocksRecorderFileName == null) {
+            return;
+        }
+
+        if (uscSystemProperties.isBlocksRecorderBinary()) {
+            blockchain.setBlockRecorder(new BinaryBlockRecorder(blocksRecorderFileName, uscSystemProperties.blocksRecorderCompress()));
+        } else {
             blockchain.setBlockRecorder(new FileBlockRecorder(blocksRecorderFileName));
         }
     }
@@ -289,6 +337,12 @@ public class FullNodeRunner implements NodeRunner {
 
         new Thread(() -> {
             UscImpl uscImpl = (UscImpl) usc;
+
+            if (BinaryBlockPlayer.isBinaryArchive(blocksPlayerFileName)) {
+                importArchive(uscImpl, cm, bc, blocksPlayerFileName);
+                return;
+            }
+
             try (FileBlockPlayer bplayer = new FileBlockPlayer(uscSystemProperties, blocksPlayerFileName)) {
                 uscImpl.setIsPlayingBlocks(true);
                 connectBlocks(bplayer, bc, cm);
@@ -300,6 +354,19 @@ public class FullNodeRunner implements NodeRunner {
         }).start();
     }
 
+    private void importArchive(UscImpl uscImpl, ChannelManager cm, Blockchain bc, String blocksPlayerFileName) {
+        try (BinaryBlockPlayer bplayer = new BinaryBlockPlayer(blocksPlayerFileName)) {
+            uscImpl.setIsPlayingBlocks(true);
+            new BlockArchiveImporter(bc, uscSystemProperties.blocksImportThreads()).importBlocks(bplayer, cm::broadcastBlock);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error", e);
+        } finally {
+            uscImpl.setIsPlayingBlocks(false);
+        }
+    }
+
     private void connectBlocks(FileBlockPlayer bplayer, Blockchain bc, ChannelManager cm) {
         for (Block block = bplayer.readBlock(); block != null; block = bplayer.readBlock()) {
             ImportResult tryToConnectResult = bc.tryToConnect(block);
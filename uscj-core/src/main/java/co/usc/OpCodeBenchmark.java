@@ -0,0 +1,365 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc;
+
+import co.usc.cli.CliArgs;
+import co.usc.config.ConfigLoader;
+import co.usc.config.NodeCliFlags;
+import co.usc.config.NodeCliOptions;
+import co.usc.config.UscSystemProperties;
+import co.usc.config.VmConfig;
+import co.usc.core.Coin;
+import co.usc.core.UscAddress;
+import co.usc.db.RepositoryImpl;
+import co.usc.trie.TrieStoreImpl;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereum.config.BlockchainConfig;
+import org.ethereum.core.Repository;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.TrieStorePoolOnMemory;
+import org.ethereum.vm.*;
+import org.ethereum.vm.program.Program;
+import org.ethereum.vm.program.invoke.ProgramInvoke;
+import org.ethereum.vm.program.invoke.ProgramInvokeImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs every opcode many times, with representative operands, under a {@link VMProfiler},
+ * and prints the measured time and gas of each one, the most expensive per unit of gas first.
+ *
+ * Usage: OpCodeBenchmark [--testnet|--regtest|...] [iterations]
+ *
+ * Each opcode is executed in a program that repeats it, surrounded by the instructions preparing its operands
+ * and dropping its results. Only the benchmarked opcode is reported. Programs run against an in-memory
+ * repository, calls go to an account without code and BLOCKHASH asks for a block out of range,
+ * so they don't measure the storage or the callee.
+ */
+public class OpCodeBenchmark {
+    private static final int REPEAT = 200;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final long GAS = 100_000_000_000L;
+
+    private static final byte[] OWNER = Hex.decode("0000000000000000000000000000000000000ace");
+    private static final byte[] ACCOUNT = Hex.decode("00000000000000000000000000000000000beef0");
+    private static final byte[] WORD1 = Hex.decode("fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210");
+    private static final byte[] WORD2 = Hex.decode("0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef");
+
+    private final VmConfig vmConfig;
+    private final PrecompiledContracts precompiledContracts;
+    private final BlockchainConfig blockchainConfig;
+    private final Repository repository;
+
+    public static void main(String[] args) {
+        CliArgs<NodeCliOptions, NodeCliFlags> cliArgs = new CliArgs.Parser<>(
+                NodeCliOptions.class,
+                NodeCliFlags.class
+        ).parse(args);
+
+        List<String> arguments = cliArgs.getArguments();
+        int iterations = arguments.isEmpty() ? 2000 : Integer.parseInt(arguments.get(0));
+
+        UscSystemProperties config = new UscSystemProperties(new ConfigLoader(cliArgs));
+
+        new OpCodeBenchmark(config).run(iterations);
+    }
+
+    public OpCodeBenchmark(UscSystemProperties config) {
+        this.vmConfig = config.getVmConfig();
+        this.precompiledContracts = new PrecompiledContracts(config);
+        this.blockchainConfig = config.getBlockchainConfig().getConfigForBlock(Long.MAX_VALUE);
+        this.repository = new RepositoryImpl(new TrieStoreImpl(new HashMapDB()), new HashMapDB(), new TrieStorePoolOnMemory(), config.detailsInMemoryStorageLimit());
+
+        this.repository.addBalance(new UscAddress(OWNER), Coin.valueOf(1000000));
+        this.repository.addBalance(new UscAddress(ACCOUNT), Coin.valueOf(1000000));
+    }
+
+    public void run(int iterations) {
+        List<VMProfiler.Profile> results = new ArrayList<>();
+
+        for (OpCode opcode : OpCode.values()) {
+            byte[] code = buildProgram(opcode);
+
+            if (code == null) {
+                continue;
+            }
+
+            VMProfiler profiler = new VMProfiler();
+            VM.setVmHook(profiler);
+
+            try {
+                String failure = execute(code, WARMUP_ITERATIONS);
+
+                if (failure != null) {
+                    System.out.println(String.format("%s skipped: %s", opcode.name(), failure));
+                    continue;
+                }
+
+                profiler.reset();
+                execute(code, iterations);
+            } finally {
+                VM.setVmHook(null);
+            }
+
+            profiler.getOpCodeProfiles().stream()
+                    .filter(profile -> profile.getName().equals(opcode.name()))
+                    .findFirst()
+                    .ifPresent(results::add);
+        }
+
+        results.sort(Comparator.comparingDouble(VMProfiler.Profile::getNanosPerGas).reversed());
+
+        System.out.println(String.format("%-16s %14s %12s %10s", "opcode", "ns/op", "gas/op", "ns/gas"));
+
+        for (VMProfiler.Profile profile : results) {
+            System.out.println(String.format("%-16s %14.1f %12.1f %10.2f", profile.getName(),
+                    profile.getNanosPerCount(), profile.getGasPerCount(), profile.getNanosPerGas()));
+        }
+    }
+
+    private String execute(byte[] code, int iterations) {
+        for (int k = 0; k < iterations; k++) {
+            Repository track = this.repository.startTracking();
+            Program program = new Program(this.vmConfig, this.precompiledContracts, this.blockchainConfig, code, newProgramInvoke(track), null);
+
+            new VM(this.vmConfig, this.precompiledContracts).play(program);
+            track.rollback();
+
+            if (program.getResult().getException() != null) {
+                return program.getResult().getException().getMessage();
+            }
+        }
+
+        return null;
+    }
+
+    private ProgramInvoke newProgramInvoke(Repository track) {
+        return new ProgramInvokeImpl(
+                new DataWord(OWNER),
+                new DataWord(OWNER),
+                new DataWord(OWNER),
+                DataWord.ZERO,
+                DataWord.ONE,
+                GAS,
+                DataWord.ZERO,
+                WORD1,
+                DataWord.ZERO,
+                DataWord.ZERO,
+                DataWord.ZERO,
+                DataWord.ZERO,
+                DataWord.ZERO,
+                new DataWord(GAS),
+                track,
+                0,
+                null,
+                false,
+                false);
+    }
+
+    /**
+     * @return a program executing the opcode, or null if it can't be benchmarked
+     */
+    private static byte[] buildProgram(OpCode opcode) {
+        ProgramBuilder builder = new ProgramBuilder();
+
+        // memory already expanded, and enough stack items for DUP and SWAP
+        builder.push(WORD1).push(0x400).op(OpCode.MSTORE);
+
+        for (int k = 0; k < 17; k++) {
+            builder.push(k);
+        }
+
+        switch (opcode) {
+            case CODEREPLACE:
+            case HEADER:
+                // not available to regular contracts
+                return null;
+            case STOP:
+                return builder.op(opcode).build();
+            case RETURN:
+            case REVERT:
+                return builder.push(32).push(0).op(opcode).build();
+            case SUICIDE:
+                return builder.push(ACCOUNT).op(opcode).build();
+            default:
+                break;
+        }
+
+        for (int k = 0; k < REPEAT; k++) {
+            addInvocation(builder, opcode);
+        }
+
+        return builder.op(OpCode.STOP).build();
+    }
+
+    private static void addInvocation(ProgramBuilder builder, OpCode opcode) {
+        String name = opcode.name();
+
+        if (name.startsWith("PUSH")) {
+            builder.op(opcode).data(new byte[opcode.val() - OpCode.PUSH1.val() + 1]).op(OpCode.POP);
+            return;
+        }
+
+        if (name.startsWith("DUP") && opcode != OpCode.DUPN) {
+            builder.op(opcode).op(OpCode.POP);
+            return;
+        }
+
+        if (name.startsWith("SWAP") && opcode != OpCode.SWAPN) {
+            builder.op(opcode);
+            return;
+        }
+
+        if (name.startsWith("LOG")) {
+            int topics = opcode.val() - OpCode.LOG0.val();
+
+            for (int k = 0; k < topics; k++) {
+                builder.push(WORD2);
+            }
+
+            builder.push(32).push(0).op(opcode);
+            return;
+        }
+
+        switch (opcode) {
+            case SIGNEXTEND:
+            case BYTE:
+                builder.push(WORD1).push(15).op(opcode).op(OpCode.POP);
+                break;
+            case SHA3:
+                builder.push(64).push(0).op(opcode).op(OpCode.POP);
+                break;
+            case BALANCE:
+            case EXTCODESIZE:
+                builder.push(ACCOUNT).op(opcode).op(OpCode.POP);
+                break;
+            case CALLDATALOAD:
+            case MLOAD:
+            case SLOAD:
+            case BLOCKHASH:
+                builder.push(0).op(opcode).op(OpCode.POP);
+                break;
+            case CALLDATACOPY:
+            case CODECOPY:
+                builder.push(32).push(0).push(0).op(opcode);
+                break;
+            case RETURNDATACOPY:
+                // there is no return data to copy
+                builder.push(0).push(0).push(0).op(opcode);
+                break;
+            case EXTCODECOPY:
+                builder.push(32).push(0).push(0).push(ACCOUNT).op(opcode);
+                break;
+            case MSTORE:
+            case MSTORE8:
+                builder.push(WORD2).push(0).op(opcode);
+                break;
+            case SSTORE:
+                // a new slot each time
+                builder.push(1).op(OpCode.GAS).op(opcode);
+                break;
+            case JUMP:
+                // to the JUMPDEST after PUSH2 <destination> JUMP
+                builder.push(builder.size() + 4, 2).op(opcode).op(OpCode.JUMPDEST);
+                break;
+            case JUMPI:
+                builder.push(1);
+                builder.push(builder.size() + 4, 2).op(opcode).op(OpCode.JUMPDEST);
+                break;
+            case DUPN:
+                builder.push(3).op(opcode).data(new byte[1]).op(OpCode.POP);
+                break;
+            case SWAPN:
+                builder.push(3).op(opcode).data(new byte[1]);
+                break;
+            case CREATE:
+                builder.push(0).push(0).push(0).op(opcode).op(OpCode.POP);
+                break;
+            case CALL:
+            case CALLCODE:
+                builder.push(32).push(0).push(32).push(0).push(0).push(ACCOUNT).push(100000).op(opcode).op(OpCode.POP);
+                break;
+            case DELEGATECALL:
+            case STATICCALL:
+                builder.push(32).push(0).push(32).push(0).push(ACCOUNT).push(100000).op(opcode).op(OpCode.POP);
+                break;
+            default:
+                for (int k = 0; k < opcode.require(); k++) {
+                    builder.push(k % 2 == 0 ? WORD1 : WORD2);
+                }
+
+                builder.op(opcode);
+
+                for (int k = 0; k < opcode.ret(); k++) {
+                    builder.op(OpCode.POP);
+                }
+        }
+    }
+
+    private static class ProgramBuilder {
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        int size() {
+            return code.size();
+        }
+
+        ProgramBuilder op(OpCode opcode) {
+            code.write(opcode.val());
+            return this;
+        }
+
+        ProgramBuilder data(byte[] bytes) {
+            code.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        ProgramBuilder push(byte[] value) {
+            code.write(OpCode.PUSH1.val() + value.length - 1);
+            return data(value);
+        }
+
+        ProgramBuilder push(int value) {
+            int length = 1;
+
+            while (length < 4 && (value >>> (8 * length)) != 0) {
+                length++;
+            }
+
+            return push(value, length);
+        }
+
+        ProgramBuilder push(int value, int length) {
+            byte[] bytes = new byte[length];
+
+            for (int k = length - 1, v = value; k >= 0; k--, v >>= 8) {
+                bytes[k] = (byte) v;
+            }
+
+            return push(bytes);
+        }
+
+        byte[] build() {
+            return code.toByteArray();
+        }
+    }
+}
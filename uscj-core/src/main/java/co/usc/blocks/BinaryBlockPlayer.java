@@ -0,0 +1,205 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.blocks;
+
+import org.ethereum.core.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static co.usc.blocks.BinaryBlockRecorder.*;
+
+/**
+ * Plays the blocks of an archive written by {@link BinaryBlockRecorder}.
+ *
+ * The file is memory mapped in windows, so reading a block doesn't copy it through a stream buffer.
+ * Records can be read in order with {@link #readRecord()} and turned into the block encoding with
+ * {@link #toEncoded(byte[])} later, from any thread, which is what {@link BlockArchiveImporter} does.
+ */
+public class BinaryBlockPlayer implements BlockPlayer, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger("blockplayer");
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // deflate can't expand its input more than this, a longer block length means a corrupt record
+    private static final long MAX_INFLATE_RATIO = 1032;
+
+    private FileChannel channel;
+    private long size;
+    private boolean compressed;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public BinaryBlockPlayer(String filename) {
+        try {
+            this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+            this.size = this.channel.size();
+
+            byte[] header = readBytes(0, HEADER_LENGTH);
+
+            if (header == null || !Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC) || header[MAGIC.length] != VERSION) {
+                throw new IOException("Not a binary block archive: " + filename);
+            }
+
+            this.compressed = (header[MAGIC.length + 1] & COMPRESSED) != 0;
+            this.position = HEADER_LENGTH;
+        }
+        catch (IOException ex) {
+            logger.error("Exception opening binary block player", ex);
+            this.size = 0;
+        }
+    }
+
+    /**
+     * @return true if the file starts as a binary block archive
+     */
+    public static boolean isBinaryArchive(String filename) {
+        Path path = Paths.get(filename);
+
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+
+        try (InputStream input = Files.newInputStream(path)) {
+            return input.read(magic) == magic.length && Arrays.equals(magic, MAGIC);
+        }
+        catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public Block readBlock() {
+        byte[] record = readRecord();
+        return record == null ? null : new Block(toEncoded(record));
+    }
+
+    /**
+     * @return the next record as stored in the archive, or null at the end of it
+     */
+    public byte[] readRecord() {
+        if (this.position + Integer.BYTES > this.size) {
+            return null;
+        }
+
+        try {
+            byte[] lengthBytes = readBytes(this.position, Integer.BYTES);
+            int length = ByteBuffer.wrap(lengthBytes).getInt();
+
+            if (length < 0 || this.position + Integer.BYTES + length > this.size) {
+                logger.warn("Truncated block record at offset {}, stopping", this.position);
+                this.position = this.size;
+                return null;
+            }
+
+            byte[] record = readBytes(this.position + Integer.BYTES, length);
+            this.position += Integer.BYTES + length;
+
+            return record;
+        }
+        catch (IOException ex) {
+            logger.error("Exception reading block record", ex);
+            this.position = this.size;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the block encoding of a record returned by {@link #readRecord()}
+     */
+    public byte[] toEncoded(byte[] record) {
+        if (!this.compressed) {
+            return record;
+        }
+
+        if (record.length < Integer.BYTES) {
+            throw new IllegalArgumentException("Invalid compressed block record");
+        }
+
+        int length = ByteBuffer.wrap(record).getInt();
+
+        if (length < 0 || length > (record.length - Integer.BYTES) * MAX_INFLATE_RATIO) {
+            throw new IllegalArgumentException("Invalid compressed block record length " + length);
+        }
+
+        byte[] encoded = new byte[length];
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(record, Integer.BYTES, record.length - Integer.BYTES);
+
+            if (inflater.inflate(encoded) != length) {
+                throw new IllegalArgumentException("Invalid compressed block record");
+            }
+
+            return encoded;
+        }
+        catch (DataFormatException ex) {
+            throw new IllegalArgumentException("Invalid compressed block record", ex);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] readBytes(long from, int length) throws IOException {
+        if (from + length > this.size) {
+            return null;
+        }
+
+        if (this.window == null || from < this.windowStart || from + length > this.windowStart + this.window.capacity()) {
+            this.windowStart = from;
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(this.size - from, Math.max(WINDOW_SIZE, length)));
+        }
+
+        ByteBuffer view = this.window.duplicate();
+        view.position((int) (from - this.windowStart));
+
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+}
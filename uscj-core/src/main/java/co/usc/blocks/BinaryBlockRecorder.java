@@ -0,0 +1,131 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.blocks;
+
+import org.ethereum.core.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Records blocks in the binary archive format read by {@link BinaryBlockPlayer}.
+ *
+ * The file starts with the magic bytes "USCB", a version byte and a flags byte. Each block follows
+ * as its length (4 bytes, big endian) and its RLP encoding. When the archive is compressed the
+ * encoding is replaced by its own length and the deflated bytes, so every block can be inflated on
+ * its own, in any thread.
+ */
+public class BinaryBlockRecorder implements BlockRecorder, AutoCloseable {
+    static final byte[] MAGIC = { 'U', 'S', 'C', 'B' };
+    static final byte VERSION = 1;
+    static final byte COMPRESSED = 0x01;
+    static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    private static final Logger logger = LoggerFactory.getLogger("blockrecorder");
+
+    private final boolean compress;
+    private DataOutputStream output;
+    private Deflater deflater;
+    private byte[] buffer = new byte[64 * 1024];
+
+    public BinaryBlockRecorder(String filename, boolean compress) {
+        this.compress = compress;
+
+        try {
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 256 * 1024));
+            this.output.write(MAGIC);
+            this.output.writeByte(VERSION);
+            this.output.writeByte(compress ? COMPRESSED : 0);
+            this.output.flush();
+        }
+        catch (IOException ex) {
+            logger.error("Exception creating binary block recorder: ", ex);
+        }
+
+        if (compress) {
+            this.deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+    }
+
+    @Override
+    public synchronized void writeBlock(Block block) {
+        if (this.output == null) {
+            return;
+        }
+
+        byte[] encoded = block.getEncoded();
+
+        try {
+            if (this.compress) {
+                int length = deflate(encoded);
+                this.output.writeInt(Integer.BYTES + length);
+                this.output.writeInt(encoded.length);
+                this.output.write(this.buffer, 0, length);
+            } else {
+                this.output.writeInt(encoded.length);
+                this.output.write(encoded);
+            }
+
+            // a block is either whole on disk or not there, the player stops at a truncated one
+            this.output.flush();
+        }
+        catch (IOException ex) {
+            logger.error("Exception writing block: ", ex);
+        }
+    }
+
+    private int deflate(byte[] encoded) {
+        this.deflater.reset();
+        this.deflater.setInput(encoded);
+        this.deflater.finish();
+
+        int length = 0;
+
+        while (!this.deflater.finished()) {
+            if (length == this.buffer.length) {
+                byte[] newBuffer = new byte[this.buffer.length * 2];
+                System.arraycopy(this.buffer, 0, newBuffer, 0, length);
+                this.buffer = newBuffer;
+            }
+
+            length += this.deflater.deflate(this.buffer, length, this.buffer.length - length);
+        }
+
+        return length;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.output != null) {
+            this.output.close();
+            this.output = null;
+        }
+
+        if (this.deflater != null) {
+            this.deflater.end();
+            this.deflater = null;
+        }
+    }
+}
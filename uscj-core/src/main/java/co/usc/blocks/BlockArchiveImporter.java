@@ -0,0 +1,150 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.blocks;
+
+import co.usc.validators.BlockRootValidationRule;
+import co.usc.validators.BlockValidationRule;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.ImportResult;
+import org.ethereum.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Imports the blocks of a binary archive into the blockchain.
+ *
+ * Records are read in order, and decoded in a pool of threads a window ahead of the import: the
+ * block and transaction hashes are computed, the transaction senders recovered and the transaction
+ * root checked, so the blockchain thread only has to execute and store them, still in archive order.
+ */
+public class BlockArchiveImporter {
+    private static final Logger logger = LoggerFactory.getLogger("blockplayer");
+
+    private static final int BLOCKS_PER_THREAD_AHEAD = 16;
+    private static final int LOG_INTERVAL = 1000;
+
+    private final Blockchain blockchain;
+    private final int nthreads;
+    private final BlockValidationRule txsRootRule = new BlockRootValidationRule();
+
+    public BlockArchiveImporter(Blockchain blockchain, int nthreads) {
+        this.blockchain = blockchain;
+        this.nthreads = Math.max(1, nthreads);
+    }
+
+    /**
+     * Imports the archive up to its end, or up to the first block that can't be decoded
+     *
+     * @param onImported called with each block that was imported
+     * @return the number of imported blocks
+     */
+    public long importBlocks(BinaryBlockPlayer player, Consumer<Block> onImported) throws InterruptedException {
+        ExecutorService decoders = Executors.newFixedThreadPool(this.nthreads, r -> {
+            Thread thread = new Thread(r, "BlockArchiveDecoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Deque<Future<Block>> pending = new ArrayDeque<>();
+        int window = this.nthreads * BLOCKS_PER_THREAD_AHEAD;
+        long start = System.nanoTime();
+        long read = 0;
+        long imported = 0;
+
+        try {
+            while (pending.size() < window && submitNext(player, decoders, pending)) {
+                // filling the window
+            }
+
+            while (!pending.isEmpty()) {
+                Block block = pending.removeFirst().get();
+                submitNext(player, decoders, pending);
+
+                if (block == null) {
+                    logger.warn("Invalid block in archive after {} blocks, stopping", read);
+                    break;
+                }
+
+                read++;
+
+                ImportResult result = this.blockchain.tryToConnect(block);
+
+                if (result.isSuccessful()) {
+                    imported++;
+                    onImported.accept(block);
+                } else {
+                    logger.debug("Block {} {} from archive not imported: {}", block.getNumber(), block.getShortHash(), result);
+                }
+
+                if (read % LOG_INTERVAL == 0) {
+                    logger.info("Read {} blocks from archive, {} imported, {} blocks/s", read, imported, rate(read, start));
+                }
+            }
+        }
+        catch (ExecutionException ex) {
+            logger.error("Exception decoding block after {} blocks, stopping", read, ex.getCause());
+        }
+        finally {
+            decoders.shutdownNow();
+        }
+
+        logger.info("Archive import done, read {} blocks, {} imported, {} blocks/s", read, imported, rate(read, start));
+
+        return imported;
+    }
+
+    private boolean submitNext(BinaryBlockPlayer player, ExecutorService decoders, Deque<Future<Block>> pending) {
+        byte[] record = player.readRecord();
+
+        if (record == null) {
+            return false;
+        }
+
+        pending.addLast(decoders.submit(() -> decode(player, record)));
+
+        return true;
+    }
+
+    private Block decode(BinaryBlockPlayer player, byte[] record) {
+        Block block = new Block(player.toEncoded(record));
+        block.getHash();
+
+        for (Transaction tx : block.getTransactionsList()) {
+            tx.getHash();
+            tx.getSender();
+        }
+
+        return this.txsRootRule.isValid(block) ? block : null;
+    }
+
+    private static long rate(long blocks, long start) {
+        long elapsed = System.nanoTime() - start;
+        return elapsed <= 0 ? 0 : blocks * 1_000_000_000L / elapsed;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.bp;
+
+import co.usc.core.Coin;
+import co.usc.core.UscAddress;
+import co.usc.core.bc.BlockResult;
+import co.usc.crypto.Keccak256;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A block being built ahead of its slot. It keeps the partial execution of the pending
+ * transactions already included, so new transactions only need to be executed on top of it.
+ * The closing transactions (BLM and REMASC) are only added when the block is finished.
+ */
+class BlockCandidate {
+    private final Block parent;
+    private final Block template;
+    private final Coin minimumGasPrice;
+    private final Repository parentRepository;
+
+    private final Map<UscAddress, BigInteger> accountNonces = new HashMap<>();
+    private final Set<Keccak256> included = new HashSet<>();
+    private Set<Keccak256> examined = new HashSet<>();
+
+    private BlockResult result;
+
+    BlockCandidate(Block parent, Block template, Coin minimumGasPrice, Repository parentRepository, BlockResult result) {
+        this.parent = parent;
+        this.template = template;
+        this.minimumGasPrice = minimumGasPrice;
+        this.parentRepository = parentRepository;
+        this.result = result;
+    }
+
+    Block getParent() {
+        return parent;
+    }
+
+    Block getTemplate() {
+        return template;
+    }
+
+    Coin getMinimumGasPrice() {
+        return minimumGasPrice;
+    }
+
+    Repository getParentRepository() {
+        return parentRepository;
+    }
+
+    /**
+     * Nonces of the last transaction executed in the candidate for each sender
+     */
+    Map<UscAddress, BigInteger> getAccountNonces() {
+        return accountNonces;
+    }
+
+    boolean isIncluded(Keccak256 txHash) {
+        return included.contains(txHash);
+    }
+
+    BlockResult getResult() {
+        return result;
+    }
+
+    void setResult(BlockResult result) {
+        this.result = result;
+    }
+
+    /**
+     * Remembers the pending transactions not yet included that were looked at in the last update.
+     *
+     * @return false if they are the same ones looked at the previous time
+     */
+    boolean setExamined(Set<Keccak256> txHashes) {
+        if (examined.equals(txHashes)) {
+            return false;
+        }
+
+        examined = txHashes;
+        return true;
+    }
+
+    void addIncluded(Keccak256 txHash, UscAddress sender, BigInteger nonce) {
+        included.add(txHash);
+        accountNonces.put(sender, nonce);
+    }
+
+    int size() {
+        return included.size();
+    }
+}
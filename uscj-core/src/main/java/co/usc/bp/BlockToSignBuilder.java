@@ -23,6 +23,9 @@ import co.usc.config.*;
 import co.usc.core.Coin;
 import co.usc.core.UscAddress;
 import co.usc.core.bc.BlockExecutor;
+import co.usc.core.bc.BlockResult;
+import co.usc.core.bc.BlockResultCache;
+import co.usc.crypto.Keccak256;
 import co.usc.remasc.RemascTransaction;
 import co.usc.ulordj.core.Sha256Hash;
 import co.usc.validators.BlockValidationRule;
@@ -83,7 +86,8 @@ public class BlockToSignBuilder {
             GasLimitCalculator gasLimitCalculator,
             @Qualifier("bpServerBlockValidation") BlockValidationRule validationRules,
             UscSystemProperties config,
-            ReceiptStore receiptStore) {
+            ReceiptStore receiptStore,
+            BlockResultCache resultCache) {
         this.bpConfig = Objects.requireNonNull(bpConfig);
         this.repository = Objects.requireNonNull(repository);
         this.blockStore = Objects.requireNonNull(blockStore);
@@ -115,7 +119,7 @@ public class BlockToSignBuilder {
                 config.databaseDir(),
                 config.vmTraceDir(),
                 config.vmTraceCompressed()
-        ));
+        ), resultCache);
         this.config = config;
         this.bpMinGasPriceTarget = Coin.valueOf(bpConfig.getMinGasPriceTarget());
     }
@@ -144,6 +148,118 @@ public class BlockToSignBuilder {
         return newBlock;
     }
 
+    /**
+     * startCandidate prepares a block to be built by parts, ahead of the slot it is for.
+     * The block timestamp is taken from the slot, so the transactions executed meanwhile
+     * see the same block data as the finished block.
+     *
+     * @param newBlockParent the new block parent.
+     * @param slotTime       the start of the slot, in milliseconds.
+     */
+    BlockCandidate startCandidate(Block newBlockParent, long slotTime) {
+        Coin minimumGasPrice = minimumGasPriceCalculator.calculate(
+                newBlockParent.getMinimumGasPrice(),
+                bpMinGasPriceTarget
+        );
+
+        long timestampSeconds = Long.max(slotTime / 1000 + timeAdjustment, newBlockParent.getTimestamp() + 1);
+        BlockHeader header = createHeader(newBlockParent, Collections.emptyList(), minimumGasPrice, timestampSeconds);
+
+        return new BlockCandidate(
+                newBlockParent,
+                new Block(header, new ArrayList<>()),
+                minimumGasPrice,
+                repository.getSnapshotTo(newBlockParent.getStateRoot()),
+                BlockExecutor.emptyResult(newBlockParent.getStateRoot())
+        );
+    }
+
+    /**
+     * updateCandidate executes the pending transactions that arrived since the last update
+     * on top of the ones already in the candidate.
+     *
+     * @param candidate the block candidate to update.
+     */
+    void updateCandidate(BlockCandidate candidate) {
+        List<Transaction> newTxs = new ArrayList<>();
+        Set<Keccak256> newTxHashes = new HashSet<>();
+
+        for (Transaction tx : bpUtils.getAllTransactions(transactionPool)) {
+            if (!candidate.isIncluded(tx.getHash())) {
+                newTxs.add(tx);
+                newTxHashes.add(tx.getHash());
+            }
+        }
+
+        // nothing changed in the pending state since the last update
+        if (!candidate.setExamined(newTxHashes)) {
+            return;
+        }
+
+        List<Transaction> txsToRemove = new ArrayList<>();
+        List<Transaction> txs = filterCandidateTransactions(candidate, txsToRemove, newTxs);
+        removePendingTransactions(txsToRemove);
+
+        if (!txs.isEmpty()) {
+            executeInCandidate(candidate, txs);
+        }
+
+        logger.debug("Block candidate over {} has {} transaction(s)", candidate.getParent().getShortHash(), candidate.size());
+    }
+
+    /**
+     * buildFromCandidate finishes a block candidate adding the closing transactions,
+     * and returns the signed and filled block.
+     *
+     * @param candidate the block candidate.
+     * @param extraData extra data to pass to the block being built
+     */
+    Block buildFromCandidate(BlockCandidate candidate, byte[] extraData) {
+        Block newBlockParent = candidate.getParent();
+        long number = newBlockParent.getNumber() + 1;
+
+        List<Transaction> closingTxs = new ArrayList<>();
+        Transaction blmTx = new BlmTransaction(number, getBpListData());
+
+        if (!candidate.isIncluded(blmTx.getHash())) {
+            closingTxs.add(blmTx);
+        }
+
+        closingTxs.add(new RemascTransaction(number));
+
+        executeInCandidate(candidate, filterCandidateTransactions(candidate, null, closingTxs));
+
+        BlockResult result = candidate.getResult();
+        Block newBlock = createBlock(newBlockParent, result.getExecutedTransactions(), candidate.getMinimumGasPrice(), candidate.getTemplate().getTimestamp());
+
+        if (newBlock == null) {
+            return null;
+        }
+
+        newBlock.setExtraData(extraData);
+        executor.fill(newBlock, newBlockParent, result);
+        return newBlock;
+    }
+
+    private List<Transaction> filterCandidateTransactions(BlockCandidate candidate, List<Transaction> txsToRemove, List<Transaction> txs) {
+        // the nonces are only updated with the transactions that really get executed
+        Map<UscAddress, BigInteger> accountNonces = new HashMap<>(candidate.getAccountNonces());
+        return bpUtils.filterTransactions(txsToRemove, txs, accountNonces, candidate.getParentRepository(), candidate.getMinimumGasPrice());
+    }
+
+    private void executeInCandidate(BlockCandidate candidate, List<Transaction> txs) {
+        BlockResult previous = candidate.getResult();
+        BlockResult result = executor.executeMore(candidate.getTemplate(), previous, txs);
+
+        List<Transaction> executed = result.getExecutedTransactions();
+
+        for (Transaction tx : executed.subList(previous.getExecutedTransactions().size(), executed.size())) {
+            candidate.addIncluded(tx.getHash(), tx.getSender(), new BigInteger(1, tx.getNonce()));
+        }
+
+        candidate.setResult(result);
+    }
+
     private List<Transaction> getTransactions(List<Transaction> txsToRemove, Block parent, Coin minGasPrice) {
         logger.debug("getting transactions from pending state");
         List<Transaction> txs = bpUtils.getAllTransactions(transactionPool);
@@ -172,8 +288,16 @@ public class BlockToSignBuilder {
             Block newBlockParent,
             List<Transaction> txs,
             Coin minimumGasPrice) {
+        return createBlock(newBlockParent, txs, minimumGasPrice, this.getCurrentTimeInSeconds());
+    }
 
-        final BlockHeader newHeader = createHeader(newBlockParent, txs, minimumGasPrice);
+    private Block createBlock(
+            Block newBlockParent,
+            List<Transaction> txs,
+            Coin minimumGasPrice,
+            long timestampSeconds) {
+
+        final BlockHeader newHeader = createHeader(newBlockParent, txs, minimumGasPrice, timestampSeconds);
         final Block newBlock = new Block(newHeader, txs);
         ECKey bpKey = config.getMyKey();
         byte[] headerHash = Sha256Hash.hash(newBlock.getHeader().getEncoded());
@@ -191,9 +315,8 @@ public class BlockToSignBuilder {
     private BlockHeader createHeader(
             Block newBlockParent,
             List<Transaction> txs,
-            Coin minimumGasPrice) {
-
-        final long timestampSeconds = this.getCurrentTimeInSeconds();
+            Coin minimumGasPrice,
+            long timestampSeconds) {
 
         // Set gas limit before executing block
         BigInteger minGasLimit = BigInteger.valueOf(bpConfig.getGasLimit().getMininimum());
@@ -215,7 +338,7 @@ public class BlockToSignBuilder {
                 new byte[]{},
                 minimumGasPrice.getBytes()
         );
-        newHeader.setTransactionsRoot(Block.getTxTrie(txs).getHash().getBytes());
+        newHeader.setTransactionsRoot(Block.calculateTxTrieRoot(txs));
         return newHeader;
     }
 
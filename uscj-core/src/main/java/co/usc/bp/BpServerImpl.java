@@ -25,6 +25,7 @@ import co.usc.core.Coin;
 import co.usc.core.UscAddress;
 import co.usc.crypto.Keccak256;
 import co.usc.net.BlockProcessor;
+import co.usc.net.Metrics;
 import co.usc.panic.PanicProcessor;
 import com.google.common.annotations.VisibleForTesting;
 import org.ethereum.config.Constants;
@@ -69,6 +70,7 @@ public class BpServerImpl implements BpServer {
     private final Ethereum ethereum;
     private final Blockchain blockchain;
     private final BlockToSignBuilder builder;
+    private final SpeculativeBlockBuilder speculativeBuilder;
     private Timer scheduleAndBuildTimer;
     private Timer produceBlockTimer;
 
@@ -111,6 +113,7 @@ public class BpServerImpl implements BpServer {
         this.blockchain = blockchain;
         this.nodeBlockProcessor = nodeBlockProcessor;
         this.builder = builder;
+        this.speculativeBuilder = new SpeculativeBlockBuilder(blockchain, builder);
         this.uosRpcChannel = uosRpcChannel;
 
         latestPaidFeesWithNotify = Coin.ZERO;
@@ -135,6 +138,7 @@ public class BpServerImpl implements BpServer {
         synchronized (lock) {
             started = false;
             ethereum.removeListener(blockListener);
+            speculativeBuilder.stop();
 
             scheduleAndBuildTimer = null;
             produceBlockTimer = null;
@@ -151,6 +155,7 @@ public class BpServerImpl implements BpServer {
             started = true;
             blockListener = new NewBlockListener();
             ethereum.addListener(blockListener);
+            speculativeBuilder.start();
 
             // Set up timer to produce block;
             if(produceBlockTimer!= null) {
@@ -203,11 +208,25 @@ public class BpServerImpl implements BpServer {
      */
     @Override
     public void buildAndProcessBlock(@Nonnull Block newBlockParent, byte[] bpListData) {
+        buildAndProcessBlock(newBlockParent, bpListData, Instant.now().toEpochMilli());
+    }
+
+    private void buildAndProcessBlock(@Nonnull Block newBlockParent, byte[] bpListData, long slotTime) {
 
         logger.info("Starting block to sign from parent {} {}", newBlockParent.getNumber(), newBlockParent.getHash());
 
+        long buildStart = System.nanoTime();
         builder.setBpListData(bpListData);
-        final Block newBlock = builder.build(newBlockParent, extraData);
+
+        // use the block built ahead of the slot if it was built over the same parent
+        Block newBlock = speculativeBuilder.take(newBlockParent, extraData);
+        boolean speculative = newBlock != null;
+
+        if (!speculative) {
+            newBlock = builder.build(newBlockParent, extraData);
+        }
+
+        Metrics.buildBlock(newBlock, speculative, System.nanoTime() - buildStart, slotTime, Constants.getBlockIntervalMs());
 
         synchronized (lock) {
 
@@ -260,16 +279,18 @@ public class BpServerImpl implements BpServer {
 
         List<String> producers;
         Blockchain blockchain;
-        ProduceBlock(List<String> producers, Blockchain bestchain) {
+        long slotTime;
+        ProduceBlock(List<String> producers, Blockchain bestchain, long slotTime) {
             this.producers = producers;
             this.blockchain = bestchain;
+            this.slotTime = slotTime;
         }
 
         @Override
         public void run() {
             //System.out.println("Producing block");
             byte[] bpListData = Utils.encodeBpList(producers);
-            buildAndProcessBlock(blockchain.getBestBlock(), bpListData);
+            buildAndProcessBlock(blockchain.getBestBlock(), bpListData, slotTime);
         }
     }
 
@@ -306,9 +327,10 @@ public class BpServerImpl implements BpServer {
 
                     futureSchedule = getFutureSchedule(producers);
 
-                    if(futureSchedule != -1)
-                        produceBlockTimer.schedule(new ProduceBlock(producers, blockchain), new Date(futureSchedule));
-                    else {
+                    if(futureSchedule != -1) {
+                        speculativeBuilder.prepare(futureSchedule);
+                        produceBlockTimer.schedule(new ProduceBlock(producers, blockchain, futureSchedule), new Date(futureSchedule));
+                    } else {
                         futureSchedule = Instant.now().toEpochMilli();
                     }
                 }
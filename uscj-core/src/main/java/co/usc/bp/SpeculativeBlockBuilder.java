@@ -0,0 +1,144 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.bp;
+
+import org.ethereum.config.Constants;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.GuardedBy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a block candidate for the next slot of this block producer up to date in background,
+ * following the best block and the pending transactions, so when the slot arrives the block
+ * only needs the closing transactions to be executed before being sealed.
+ */
+class SpeculativeBlockBuilder {
+    private static final Logger logger = LoggerFactory.getLogger("bpserver");
+
+    private static final long REFRESH_INTERVAL_MS = 200;
+    // how many block intervals before the slot the candidate starts being built
+    private static final int LEAD_INTERVALS = 2;
+
+    private final Blockchain blockchain;
+    private final BlockToSignBuilder builder;
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private ScheduledExecutorService worker;
+    @GuardedBy("lock")
+    private long slotTime;
+    @GuardedBy("lock")
+    private BlockCandidate candidate;
+
+    SpeculativeBlockBuilder(Blockchain blockchain, BlockToSignBuilder builder) {
+        this.blockchain = blockchain;
+        this.builder = builder;
+    }
+
+    void start() {
+        synchronized (lock) {
+            if (worker != null) {
+                return;
+            }
+
+            worker = Executors.newSingleThreadScheduledExecutor(target -> new Thread(target, "BP Speculative Builder"));
+            worker.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL_MS, REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void stop() {
+        synchronized (lock) {
+            if (worker != null) {
+                worker.shutdownNow();
+                worker = null;
+            }
+
+            slotTime = 0;
+            candidate = null;
+        }
+    }
+
+    /**
+     * Starts building for the slot beginning at the given time, in milliseconds.
+     */
+    void prepare(long slotTime) {
+        synchronized (lock) {
+            this.slotTime = slotTime;
+            this.candidate = null;
+        }
+    }
+
+    /**
+     * Finishes the candidate built over the given parent.
+     *
+     * @return the finished block, or null if there is no candidate over that parent
+     */
+    Block take(Block parent, byte[] extraData) {
+        synchronized (lock) {
+            BlockCandidate current = candidate;
+
+            slotTime = 0;
+            candidate = null;
+
+            if (current == null || !current.getParent().getHash().equals(parent.getHash())) {
+                return null;
+            }
+
+            try {
+                // last chance for the transactions that arrived since the previous refresh
+                builder.updateCandidate(current);
+                return builder.buildFromCandidate(current, extraData);
+            } catch (Exception e) {
+                logger.warn("Unable to finish block candidate over {}", parent.getShortHash(), e);
+                return null;
+            }
+        }
+    }
+
+    private void refresh() {
+        synchronized (lock) {
+            if (slotTime == 0 || System.currentTimeMillis() < slotTime - Constants.getBlockIntervalMs() * LEAD_INTERVALS) {
+                return;
+            }
+
+            try {
+                Block bestBlock = blockchain.getBestBlock();
+
+                if (candidate == null || !candidate.getParent().getHash().equals(bestBlock.getHash())) {
+                    logger.debug("Starting block candidate over {} {}", bestBlock.getNumber(), bestBlock.getShortHash());
+                    candidate = builder.startCandidate(bestBlock, slotTime);
+                }
+
+                builder.updateCandidate(candidate);
+            } catch (Exception e) {
+                // an exception would cancel the next refreshes
+                logger.warn("Unable to update block candidate", e);
+                candidate = null;
+            }
+        }
+    }
+}
@@ -162,6 +162,26 @@ public class UscSystemProperties extends SystemProperties {
         return getString("blocks.player", null);
     }
 
+    public boolean isBlocksRecorderBinary() {
+        return "binary".equals(getString("blocks.format", "text"));
+    }
+
+    public boolean blocksRecorderCompress() {
+        return getBoolean("blocks.compress", false);
+    }
+
+    public int blocksImportThreads() {
+        return getInt("blocks.importThreads", Runtime.getRuntime().availableProcessors());
+    }
+
+    public int peerTxBatchInterval() {
+        return getInt("peer.txBatchInterval", 50);
+    }
+
+    public int eventsQueueSize() {
+        return getInt("events.queueSize", 10000);
+    }
+
 //    public boolean isFlushEnabled() {
 //        return getBoolean("blockchain.flush", true);
 //    }
@@ -176,6 +196,26 @@ public class UscSystemProperties extends SystemProperties {
 
     }
 
+    public int rpcCallThreads() {
+        return getInt("rpc.executor.call.threads", 2);
+    }
+
+    public int rpcLogsThreads() {
+        return getInt("rpc.executor.logs.threads", 2);
+    }
+
+    public int rpcDefaultThreads() {
+        return getInt("rpc.executor.default.threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    public int rpcQueueSize() {
+        return getInt("rpc.executor.queue_size", 256);
+    }
+
+    public long rpcTimeout() {
+        return getLong("rpc.executor.timeout", 30000);
+    }
+
     //TODO: REMOVE THIS WHEN THE LocalBLockTests starts working with REMASC
     public boolean isRemascEnabled() {
         return remascEnabled;
@@ -321,6 +361,14 @@ public class UscSystemProperties extends SystemProperties {
         return new VmConfig(vmTrace(), vmTraceInitStorageLimit(), dumpBlock(), dumpStyle());
     }
 
+    public boolean isVmProfilerEnabled() {
+        return getBoolean("vm.profiler.enabled", false);
+    }
+
+    public int vmProfilerReportInterval() {
+        return getInt("vm.profiler.reportInterval", 600);
+    }
+
     // New prune service properties
     public boolean isPruneEnabled() {
         return configFromFiles.getBoolean("prune.enabled");
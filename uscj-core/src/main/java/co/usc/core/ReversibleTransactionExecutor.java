@@ -69,7 +69,7 @@ public class ReversibleTransactionExecutor {
             byte[] value,
             byte[] data,
             UscAddress fromAddress) {
-        Repository repository = track.getSnapshotTo(executionBlock.getStateRoot()).startTracking();
+        Repository repository = track.getReadOnlySnapshotTo(executionBlock.getStateRoot()).startTracking();
 
         byte[] nonce = repository.getNonce(fromAddress).toByteArray();
         UnsignedTransaction tx = new UnsignedTransaction(
@@ -183,8 +183,19 @@ public class UscFactory {
     }
 
     @Bean
-    public JsonRpcWeb3ServerHandler getJsonRpcWeb3ServerHandler(Web3 web3Service, UscSystemProperties uscSystemProperties) {
-        return new JsonRpcWeb3ServerHandler(web3Service, uscSystemProperties.getRpcModules());
+    public JsonRpcWorkerPool getJsonRpcWorkerPool(UscSystemProperties uscSystemProperties) {
+        return new JsonRpcWorkerPool(
+                uscSystemProperties.rpcCallThreads(),
+                uscSystemProperties.rpcLogsThreads(),
+                uscSystemProperties.rpcDefaultThreads(),
+                uscSystemProperties.rpcQueueSize(),
+                uscSystemProperties.rpcTimeout()
+        );
+    }
+
+    @Bean
+    public JsonRpcWeb3ServerHandler getJsonRpcWeb3ServerHandler(Web3 web3Service, UscSystemProperties uscSystemProperties, JsonRpcWorkerPool workerPool, Ethereum ethereum, Blockchain blockchain) {
+        return new JsonRpcWeb3ServerHandler(web3Service, uscSystemProperties.getRpcModules(), workerPool, ethereum, blockchain);
     }
 
     @Bean
@@ -193,11 +204,16 @@ public class UscFactory {
             Ethereum ethereum,
             JsonRpcWeb3ServerHandler serverHandler,
             JsonRpcSerializer serializer) {
-        EthSubscriptionNotificationEmitter emitter = new EthSubscriptionNotificationEmitter(ethereum, serializer);
+        EthSubscriptionNotificationEmitter emitter = new EthSubscriptionNotificationEmitter(
+                ethereum,
+                serializer,
+                uscSystemProperties.rpcWebSocketNotificationsDisconnectTimeout()
+        );
         UscJsonRpcHandler jsonRpcHandler = new UscJsonRpcHandler(emitter, serializer);
         return new Web3WebSocketServer(
                 uscSystemProperties.rpcWebSocketBindAddress(),
                 uscSystemProperties.rpcWebSocketPort(),
+                uscSystemProperties.rpcWebSocketNotificationsHighWatermark(),
                 jsonRpcHandler,
                 serverHandler
         );
@@ -353,8 +369,8 @@ public class UscFactory {
     }
 
     @Bean(name = "compositeEthereumListener")
-    public CompositeEthereumListener getCompositeEthereumListener() {
-        return new CompositeEthereumListener();
+    public CompositeEthereumListener getCompositeEthereumListener(UscSystemProperties config) {
+        return new CompositeEthereumListener(config.eventsQueueSize());
     }
 
     @Bean
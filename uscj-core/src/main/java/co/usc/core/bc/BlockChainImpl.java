@@ -22,8 +22,7 @@ import co.usc.blocks.BlockRecorder;
 import co.usc.config.UscSystemProperties;
 import co.usc.net.Metrics;
 import co.usc.panic.PanicProcessor;
-import co.usc.trie.Trie;
-import co.usc.trie.TrieImpl;
+import co.usc.trie.OrderedTrie;
 import co.usc.validators.BlockValidator;
 import com.google.common.annotations.VisibleForTesting;
 import org.bouncycastle.util.encoders.Hex;
@@ -36,7 +35,6 @@ import org.ethereum.db.BlockStore;
 import org.ethereum.db.ReceiptStore;
 import org.ethereum.db.TransactionInfo;
 import org.ethereum.listener.EthereumListener;
-import org.ethereum.util.RLP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -100,6 +98,7 @@ public class BlockChainImpl implements Blockchain {
 //    private final boolean flushEnabled;
 //    private final int flushNumberOfBlocks;
     private final BlockExecutor blockExecutor;
+    private final BlockImportStats importStats;
     private BlockRecorder blockRecorder;
     private boolean noValidation;
 
@@ -121,6 +120,7 @@ public class BlockChainImpl implements Blockchain {
 //        this.flushNumberOfBlocks = config.flushNumberOfBlocks();
         this.blockExecutor = blockExecutor;
         this.transactionPool = transactionPool;
+        this.importStats = new BlockImportStats(blockExecutor::getStateRootNanos);
     }
 
     @Override
@@ -131,6 +131,10 @@ public class BlockChainImpl implements Blockchain {
     @Override
     public BlockStore getBlockStore() { return blockStore; }
 
+    public BlockImportStats getImportStats() {
+        return importStats;
+    }
+
     public EthereumListener getListener() { return listener; }
 
     public void setListener(EthereumListener listener) { this.listener = listener; }
@@ -303,7 +307,11 @@ public class BlockChainImpl implements Blockchain {
         }
 
         // Validate incoming block before its processing
-        if (!isValid(block)) {
+        long phaseStart = System.nanoTime();
+        boolean isValidBlock = isValid(block);
+        importStats.addValidation(System.nanoTime() - phaseStart);
+
+        if (!isValidBlock) {
             long blockNumber = block.getNumber();
             logger.warn("Invalid block with number: {}, bp: {}", blockNumber, block.getCoinbase().toString());
             panicProcessor.panic("invalidblock", String.format("Invalid block %s %s", blockNumber, block.getHash()));
@@ -313,13 +321,19 @@ public class BlockChainImpl implements Blockchain {
         BlockResult result = null;
 
         if (parent != null) {
+            phaseStart = System.nanoTime();
+
             if (this.noValidation) {
                 result = blockExecutor.executeAll(block, parent.getStateRoot());
             } else {
-                result = blockExecutor.execute(block, parent.getStateRoot(), false);
+                result = blockExecutor.executeOrReuse(block, parent.getStateRoot());
             }
 
+            importStats.addExecution(System.nanoTime() - phaseStart);
+
+            phaseStart = System.nanoTime();
             boolean isValid = noValidation || blockExecutor.validate(block, result);
+            importStats.addValidation(System.nanoTime() - phaseStart);
 
             if (!isValid) {
                 return ImportResult.INVALID_BLOCK;
@@ -338,19 +352,28 @@ public class BlockChainImpl implements Blockchain {
             blockStore.reBranch(block);
         }
 
+        phaseStart = System.nanoTime();
         switchToBlockChain(block);
         saveReceipts(block, result);
+        importStats.addStore(System.nanoTime() - phaseStart);
+
+        phaseStart = System.nanoTime();
         processBest(block);
         onBestBlock(block, result);
         onBlock(block, result);
         updateLatestIrreversibleBlock(block);
+        importStats.addListeners(System.nanoTime() - phaseStart);
 
         long latestBlockTime = Instant.now().toEpochMilli() / 1000;
         if(latestBlockTime - previousBlockTime > (Constants.getProducerRepetitions() - 1))  {
             previousBlockTime = latestBlockTime;
+            phaseStart = System.nanoTime();
             flushData();
+            importStats.addFlush(System.nanoTime() - phaseStart);
         }
 
+        importStats.addImported(block);
+
         if (block.getNumber() % 100 == 0) {
             logger.info("*** Last block added [ #{} ]", block.getNumber());
         }
@@ -486,9 +509,14 @@ public class BlockChainImpl implements Blockchain {
         return txInfo;
     }
 
+    /**
+     * Flushes the state and the blocks, so a restart finds the best block with its state complete on disk.
+     */
     @Override
     public void close() {
-
+        synchronized (accessLock) {
+            flushData();
+        }
     }
 
     @Override @VisibleForTesting
@@ -564,20 +592,14 @@ public class BlockChainImpl implements Blockchain {
     }
 
     public static byte[] calcTxTrie(List<Transaction> transactions) {
-        return Block.getTxTrie(transactions).getHash().getBytes();
+        return Block.calculateTxTrieRoot(transactions);
     }
 
     public static byte[] calcReceiptsTrie(List<TransactionReceipt> receipts) {
-        Trie receiptsTrie = new TrieImpl();
-
         if (receipts == null || receipts.isEmpty()) {
             return HashUtil.EMPTY_TRIE_HASH;
         }
 
-        for (int i = 0; i < receipts.size(); i++) {
-            receiptsTrie = receiptsTrie.put(RLP.encodeInt(i), receipts.get(i).getEncoded());
-        }
-
-        return receiptsTrie.getHash().getBytes();
+        return OrderedTrie.calculateRoot(receipts, TransactionReceipt::getEncoded).getBytes();
     }
 }
@@ -28,6 +28,7 @@ import org.bouncycastle.util.encoders.Hex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * BlockExecutor has methods to execute block with its transactions.
@@ -42,10 +43,23 @@ public class BlockExecutor {
 
     private final Repository repository;
     private final TransactionExecutorFactory transactionExecutorFactory;
+    private final BlockResultCache resultCache;
+
+    // time spent hashing the state after each transaction
+    private final AtomicLong stateRootNanos = new AtomicLong();
 
     public BlockExecutor(Repository repository, TransactionExecutorFactory transactionExecutorFactory) {
+        this(repository, transactionExecutorFactory, null);
+    }
+
+    public BlockExecutor(Repository repository, TransactionExecutorFactory transactionExecutorFactory, BlockResultCache resultCache) {
         this.repository = repository;
         this.transactionExecutorFactory = transactionExecutorFactory;
+        this.resultCache = resultCache;
+    }
+
+    public long getStateRootNanos() {
+        return stateRootNanos.get();
     }
 
     /**
@@ -56,7 +70,22 @@ public class BlockExecutor {
      */
     public void executeAndFill(Block block, Block parent) {
         BlockResult result = execute(block, parent.getStateRoot(), true);
+        fill(block, parent, result);
+    }
+
+    /**
+     * Complete a block with a result already computed for it, for example with executeMore.
+     *
+     * @param block        A block to complete
+     * @param parent       The parent of the block.
+     * @param result       The result of executing the block transactions over the parent state
+     */
+    public void fill(Block block, Block parent, BlockResult result) {
         fill(block, result);
+
+        if (resultCache != null) {
+            resultCache.put(block, parent.getStateRoot(), result);
+        }
     }
 
     public void executeAndFillAll(Block block, Block parent) {
@@ -74,7 +103,7 @@ public class BlockExecutor {
     private void fill(Block block, BlockResult result) {
         block.setTransactionsList(result.getExecutedTransactions());
         BlockHeader header = block.getHeader();
-        header.setTransactionsRoot(Block.getTxTrie(block.getTransactionsList()).getHash().getBytes());
+        header.setTransactionsRoot(Block.calculateTxTrieRoot(block.getTransactionsList()));
         header.setReceiptsRoot(result.getReceiptsRoot());
         header.setGasUsed(result.getGasUsed());
         header.setPaidFees(result.getPaidFees());
@@ -167,27 +196,72 @@ public class BlockExecutor {
         return execute(block, stateRoot, discardInvalidTxs, false);
     }
 
+    /**
+     * Same as execute, but first looks for a result this node already computed while building the block.
+     *
+     * @param block        A block to validate
+     * @param stateRoot    Initial state hash
+     * @return BlockResult with the final state data.
+     */
+    public BlockResult executeOrReuse(Block block, byte[] stateRoot) {
+        if (resultCache != null) {
+            BlockResult result = resultCache.take(block, stateRoot);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return execute(block, stateRoot, false);
+    }
+
     public BlockResult executeAll(Block block, byte[] stateRoot) {
         return execute(block, stateRoot, false, true);
     }
 
+    /**
+     * Execute more transactions of a block being built, on top of the partial result of the
+     * transactions already executed for it. Invalid transactions are discarded.
+     *
+     * @param block        The block being built, its transaction list is not used
+     * @param previous     The partial result, see emptyResult
+     * @param transactions The transactions to execute after the ones in the partial result
+     * @return BlockResult with the state data after all the executed transactions.
+     */
+    public BlockResult executeMore(Block block, BlockResult previous, List<Transaction> transactions) {
+        return execute(block, transactions, previous, true, false);
+    }
+
+    /**
+     * The result of a block without transactions, to start executing a block by parts.
+     *
+     * @param stateRoot    Initial state hash
+     */
+    public static BlockResult emptyResult(byte[] stateRoot) {
+        return new BlockResult(new ArrayList<>(), new ArrayList<>(), stateRoot, 0, Coin.ZERO);
+    }
+
     private BlockResult execute(Block block, byte[] stateRoot, boolean discardInvalidTxs, boolean ignoreReadyToExecute) {
-        logger.trace("applyBlock: block: [{}] tx.list: [{}]", block.getNumber(), block.getTransactionsList().size());
+        return execute(block, block.getTransactionsList(), emptyResult(stateRoot), discardInvalidTxs, ignoreReadyToExecute);
+    }
+
+    private BlockResult execute(Block block, List<Transaction> transactions, BlockResult previous, boolean discardInvalidTxs, boolean ignoreReadyToExecute) {
+        logger.trace("applyBlock: block: [{}] tx.list: [{}]", block.getNumber(), transactions.size());
 
-        Repository initialRepository = repository.getSnapshotTo(stateRoot);
+        Repository initialRepository = repository.getSnapshotTo(previous.getStateRoot());
 
         byte[] lastStateRootHash = initialRepository.getRoot();
 
         Repository track = initialRepository.startTracking();
         int i = 1;
-        long totalGasUsed = 0;
-        Coin totalPaidFees = Coin.ZERO;
-        List<TransactionReceipt> receipts = new ArrayList<>();
-        List<Transaction> executedTransactions = new ArrayList<>();
+        long totalGasUsed = previous.getGasUsed();
+        Coin totalPaidFees = previous.getPaidFees();
+        List<TransactionReceipt> receipts = new ArrayList<>(previous.getTransactionReceipts());
+        List<Transaction> executedTransactions = new ArrayList<>(previous.getExecutedTransactions());
 
-        int txindex = 0;
+        int txindex = executedTransactions.size();
 
-        for (Transaction tx : block.getTransactionsList()) {
+        for (Transaction tx : transactions) {
             logger.trace("apply block: [{}] tx: [{}] ", block.getNumber(), i);
 
             TransactionExecutor txExecutor = transactionExecutorFactory.newInstance(
@@ -232,7 +306,9 @@ public class BlockExecutor {
             TransactionReceipt receipt = new TransactionReceipt();
             receipt.setGasUsed(gasUsed);
             receipt.setCumulativeGas(totalGasUsed);
+            long rootStart = System.nanoTime();
             lastStateRootHash = initialRepository.getRoot();
+            stateRootNanos.addAndGet(System.nanoTime() - rootStart);
             receipt.setTxStatus(txExecutor.getReceipt().isSuccessful());
             receipt.setTransaction(tx);
             receipt.setLogInfoList(txExecutor.getVMLogs());
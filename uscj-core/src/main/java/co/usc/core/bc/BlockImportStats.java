@@ -0,0 +1,123 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.core.bc;
+
+import org.ethereum.core.Block;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Running totals of the blocks imported by a {@link BlockChainImpl} and of where the import time goes.
+ *
+ * Execution time includes the state root hashing, which is also reported on its own.
+ */
+public class BlockImportStats {
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong gasUsed = new AtomicLong();
+
+    private final AtomicLong validationNanos = new AtomicLong();
+    private final AtomicLong executionNanos = new AtomicLong();
+    private final AtomicLong storeNanos = new AtomicLong();
+    private final AtomicLong listenersNanos = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+
+    private final LongSupplier stateRootNanos;
+    private volatile long stateRootNanosAtReset;
+
+    public BlockImportStats(LongSupplier stateRootNanos) {
+        this.stateRootNanos = stateRootNanos;
+    }
+
+    void addImported(Block block) {
+        blocks.incrementAndGet();
+        transactions.addAndGet(block.getTransactionsList().size());
+        gasUsed.addAndGet(block.getGasUsed());
+    }
+
+    void addValidation(long nanos) {
+        validationNanos.addAndGet(nanos);
+    }
+
+    void addExecution(long nanos) {
+        executionNanos.addAndGet(nanos);
+    }
+
+    void addStore(long nanos) {
+        storeNanos.addAndGet(nanos);
+    }
+
+    void addListeners(long nanos) {
+        listenersNanos.addAndGet(nanos);
+    }
+
+    void addFlush(long nanos) {
+        flushNanos.addAndGet(nanos);
+    }
+
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    public long getTransactions() {
+        return transactions.get();
+    }
+
+    public long getGasUsed() {
+        return gasUsed.get();
+    }
+
+    public long getValidationNanos() {
+        return validationNanos.get();
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos.get();
+    }
+
+    public long getStateRootNanos() {
+        return stateRootNanos.getAsLong() - stateRootNanosAtReset;
+    }
+
+    public long getStoreNanos() {
+        return storeNanos.get();
+    }
+
+    public long getListenersNanos() {
+        return listenersNanos.get();
+    }
+
+    public long getFlushNanos() {
+        return flushNanos.get();
+    }
+
+    public void reset() {
+        blocks.set(0);
+        transactions.set(0);
+        gasUsed.set(0);
+        validationNanos.set(0);
+        executionNanos.set(0);
+        storeNanos.set(0);
+        listenersNanos.set(0);
+        flushNanos.set(0);
+        stateRootNanosAtReset = stateRootNanos.getAsLong();
+    }
+}
@@ -19,13 +19,11 @@
 package co.usc.core.bc;
 
 import co.usc.core.Coin;
-import co.usc.trie.Trie;
-import co.usc.trie.TrieImpl;
+import co.usc.trie.OrderedTrie;
 import org.ethereum.core.Bloom;
 import org.ethereum.core.Transaction;
 import org.ethereum.core.TransactionReceipt;
 import org.ethereum.crypto.HashUtil;
-import org.ethereum.util.RLP;
 
 import java.util.Collections;
 import java.util.List;
@@ -83,17 +81,11 @@ public class BlockResult {
     // from original BlockchainImpl
     private static byte[] calculateReceiptsTrie(List<TransactionReceipt> receipts) {
         //TODO Fix Trie hash for receipts - doesnt match cpp
-        Trie receiptsTrie = new TrieImpl();
-
         if (receipts.isEmpty()) {
             return HashUtil.EMPTY_TRIE_HASH;
         }
 
-        for (int i = 0; i < receipts.size(); i++) {
-            receiptsTrie = receiptsTrie.put(RLP.encodeInt(i), receipts.get(i).getEncoded());
-        }
-
-        return receiptsTrie.getHash().getBytes();
+        return OrderedTrie.calculateRoot(receipts, TransactionReceipt::getEncoded).getBytes();
     }
 
     private static byte[] calculateLogsBloom(List<TransactionReceipt> receipts) {
@@ -0,0 +1,101 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.core.bc;
+
+import co.usc.crypto.Keccak256;
+import co.usc.util.MaxSizeHashMap;
+import org.ethereum.core.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the results of the blocks executed by this node while building them,
+ * so the import of a locally produced block doesn't execute its transactions again.
+ *
+ * An entry is only handed out for the same block hash and the same parent state root it
+ * was computed from. The state trie nodes and contract details written during that execution
+ * already live in the shared stores, so the result stays valid until it is taken.
+ */
+@Component
+public class BlockResultCache {
+    private static final Logger logger = LoggerFactory.getLogger("blockexecutor");
+
+    private static final int MAX_SIZE = 8;
+
+    private final Map<Keccak256, Entry> results = new MaxSizeHashMap<>(MAX_SIZE, false);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public void put(Block block, byte[] parentStateRoot, BlockResult result) {
+        if (result == null || result == BlockResult.INTERRUPTED_EXECUTION_BLOCK_RESULT) {
+            return;
+        }
+
+        synchronized (results) {
+            results.put(block.getHash(), new Entry(parentStateRoot, result));
+        }
+    }
+
+    /**
+     * Removes and returns the result stored for the block, or null if there is none
+     * computed from the given parent state root.
+     */
+    public BlockResult take(Block block, byte[] parentStateRoot) {
+        Entry entry;
+
+        synchronized (results) {
+            entry = results.remove(block.getHash());
+        }
+
+        if (entry == null || !Arrays.equals(entry.parentStateRoot, parentStateRoot)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        logger.trace("Reusing execution result for block {} {}", block.getNumber(), block.getShortHash());
+        hits.incrementAndGet();
+
+        return entry.result;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class Entry {
+        private final byte[] parentStateRoot;
+        private final BlockResult result;
+
+        Entry(byte[] parentStateRoot, BlockResult result) {
+            this.parentStateRoot = parentStateRoot;
+            this.result = result;
+        }
+    }
+}
@@ -208,10 +208,8 @@ public class TransactionPoolImpl implements TransactionPool {
         }
 
         if (listener != null && !added.isEmpty()) {
-            EventDispatchThread.invokeLater(() -> {
-                listener.onPendingTransactionsReceived(added);
-                listener.onTransactionPoolChanged(TransactionPoolImpl.this);
-            });
+            listener.onPendingTransactionsReceived(added);
+            listener.onTransactionPoolChanged(TransactionPoolImpl.this);
         }
 
         return added;
@@ -272,10 +270,8 @@ public class TransactionPoolImpl implements TransactionPool {
         pendingTransactions.addTransaction(tx);
 
         if (listener != null) {
-            EventDispatchThread.invokeLater(() -> {
-                listener.onPendingTransactionsReceived(Collections.singletonList(tx));
-                listener.onTransactionPoolChanged(TransactionPoolImpl.this);
-            });
+            listener.onPendingTransactionsReceived(Collections.singletonList(tx));
+            listener.onTransactionPoolChanged(TransactionPoolImpl.this);
         }
 
         return true;
@@ -320,7 +316,7 @@ public class TransactionPoolImpl implements TransactionPool {
         bestBlock = block;
 
         if (listener != null) {
-            EventDispatchThread.invokeLater(() -> listener.onTransactionPoolChanged(TransactionPoolImpl.this));
+            listener.onTransactionPoolChanged(TransactionPoolImpl.this);
         }
     }
 
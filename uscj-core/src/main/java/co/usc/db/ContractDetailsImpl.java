@@ -38,6 +38,7 @@ import org.bouncycastle.util.encoders.Hex;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.ethereum.core.AccountState.EMPTY_DATA_HASH;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
@@ -50,12 +51,15 @@ public class ContractDetailsImpl implements ContractDetails {
     private static final PanicProcessor panicProcessor = new PanicProcessor();
     private static final Logger logger = LoggerFactory.getLogger("contractdetails");
 
+    private static final AtomicLong trieRetrievals = new AtomicLong();
+
+    // retrieved from the store on first use, trieRoot holds its root hash until then
     private Trie trie;
+    private Keccak256 trieRoot;
     private byte[] code;
     private byte[] address;
     private boolean dirty;
     private boolean deleted;
-    private boolean closed;
     private Set<ByteArrayWrapper> keys = new HashSet<>();
     private final TrieStore.Pool trieStorePool;
     private final int memoryStorageLimit;
@@ -93,16 +97,14 @@ public class ContractDetailsImpl implements ContractDetails {
     public synchronized void put(DataWord key, DataWord value) {
         logger.trace("put word");
 
-        checkDataSourceIsOpened();
-
         byte[] keyBytes = key.getData();
 
         if (value.equals(DataWord.ZERO)) {
-            this.trie = this.trie.delete(keyBytes);
+            this.trie = this.getStorageTrie().delete(keyBytes);
             removeKey(keyBytes);
         }
         else {
-            this.trie = this.trie.put(keyBytes, value.getNoLeadZeroesData());
+            this.trie = this.getStorageTrie().put(keyBytes, value.getNoLeadZeroesData());
             addKey(keyBytes);
         }
 
@@ -113,16 +115,14 @@ public class ContractDetailsImpl implements ContractDetails {
     public synchronized void putBytes(DataWord key, byte[] bytes) {
         logger.trace("put bytes");
 
-        checkDataSourceIsOpened();
-
         byte[] keyBytes = key.getData();
 
         if (bytes == null) {
-            this.trie = this.trie.delete(keyBytes);
+            this.trie = this.getStorageTrie().delete(keyBytes);
             removeKey(keyBytes);
         }
         else {
-            this.trie = this.trie.put(keyBytes, bytes);
+            this.trie = this.getStorageTrie().put(keyBytes, bytes);
             addKey(keyBytes);
         }
 
@@ -133,11 +133,9 @@ public class ContractDetailsImpl implements ContractDetails {
     public synchronized DataWord get(DataWord key) {
         logger.trace("get word");
 
-        checkDataSourceIsOpened();
-
         byte[] value = null;
 
-        value = this.trie.get(key.getData());
+        value = this.getStorageTrie().get(key.getData());
 
         if (value == null || value.length == 0) {
             return null;
@@ -150,16 +148,13 @@ public class ContractDetailsImpl implements ContractDetails {
     public synchronized byte[] getBytes(DataWord key) {
         logger.trace("get bytes");
 
-        checkDataSourceIsOpened();
-
         try {
-            return this.trie.get(key.getData());
+            return this.getStorageTrie().get(key.getData());
         }
         catch (RuntimeException ex) {
             logger.error("error in get bytes", ex);
             logger.trace("retrying get bytes");
-            checkDataSourceIsOpened();
-            return this.trie.get(key.getData());
+            return this.getStorageTrie().get(key.getData());
         }
     }
 
@@ -176,7 +171,10 @@ public class ContractDetailsImpl implements ContractDetails {
 
     @Override
     public synchronized byte[] getStorageHash() {
-        checkDataSourceIsOpened();
+        if (this.trie == null) {
+            // never retrieved, so there is nothing to save either
+            return this.trieRoot.getBytes();
+        }
 
         this.trie.save();
         byte[] trieHash = this.trie.getHash().getBytes();
@@ -200,8 +198,8 @@ public class ContractDetailsImpl implements ContractDetails {
         byte[] external = rlpIsExternalStorage.getRLPData();
 
         if (external != null && external.length > 0 && external[0] == 1) {
-            Keccak256 snapshotHash = new Keccak256(root);
-            this.trie = this.newTrie().getSnapshotTo(snapshotHash);
+            this.trie = null;
+            this.trieRoot = new Keccak256(root);
         } else {
             TrieImpl newTrie = this.newTrie();
             TrieImpl tempTrie = (TrieImpl)TrieImpl.deserialize(root);
@@ -246,7 +244,7 @@ public class ContractDetailsImpl implements ContractDetails {
         byte[] rlpIsExternalStorage = RLP.encodeByte((byte) 1);
 
         // Serialize the full trie, or only the root hash if external storage is used
-        byte[] rlpStorage = RLP.encodeElement(this.trie.getHash().getBytes());
+        byte[] rlpStorage = RLP.encodeElement(this.getStorageRoot());
 
         byte[] rlpCode = RLP.encodeElement(this.code);
         byte[] rlpKeys = RLP.encodeSet(this.keys);
@@ -262,7 +260,7 @@ public class ContractDetailsImpl implements ContractDetails {
         byte[] rlpIsExternalStorage = RLP.encodeByte((byte) 0);
 
         // Serialize the full trie
-        byte[] rlpStorage = RLP.encodeElement(this.trie.serialize());
+        byte[] rlpStorage = RLP.encodeElement(this.getStorageTrie().serialize());
 
         byte[] rlpCode = RLP.encodeElement(this.code);
         byte[] rlpKeys = RLP.encodeSet(this.keys);
@@ -351,7 +349,7 @@ public class ContractDetailsImpl implements ContractDetails {
         String addressString = this.getAddressAsString();
         logger.trace("syncing storage address {}", addressString);
 
-        if (this.trie.hasStore()) {
+        if (this.trie != null && this.trie.hasStore()) {
             logger.trace("syncing to storage, hash {}, address {}, storage size {}", hashString, addressString, this.getStorageSize());
 
             this.trie.save();
@@ -362,10 +360,11 @@ public class ContractDetailsImpl implements ContractDetails {
     public synchronized ContractDetails getSnapshotTo(byte[] hash) {
         logger.trace("get snapshot");
 
-        this.trie.save();
+        Trie storageTrie = this.getStorageTrie();
+        storageTrie.save();
 
         ContractDetailsImpl details = new ContractDetailsImpl(this.address,
-                                                              this.trie.getSnapshotTo(new Keccak256(hash)),
+                                                              storageTrie.getSnapshotTo(new Keccak256(hash)),
                                                               this.code,
                                                               this.trieStorePool,
                                                               this.memoryStorageLimit);
@@ -389,8 +388,12 @@ public class ContractDetailsImpl implements ContractDetails {
         return this.codeHash;
     }
 
-    public Trie getTrie() {
-        return this.trie;
+    public synchronized Trie getTrie() {
+        return this.getStorageTrie();
+    }
+
+    public static long getTrieRetrievalCount() {
+        return trieRetrievals.get();
     }
 
     public boolean hasExternalStorage() {
@@ -419,20 +422,21 @@ public class ContractDetailsImpl implements ContractDetails {
         return Hex.toHexString(addr);
     }
 
-    private void checkDataSourceIsOpened() {
-        if (!this.closed) {
-            return;
+    private Trie getStorageTrie() {
+        if (this.trie == null) {
+            trieRetrievals.incrementAndGet();
+            this.trie = this.newTrie().getSnapshotTo(this.trieRoot);
         }
 
-        logger.trace("reopening contract details data source");
-        TrieStoreImpl newStore = (TrieStoreImpl) trieStorePool.getInstanceFor(getDataSourceName());
-        Trie newTrie = newStore.retrieve(this.trie.getHash().getBytes());
-        this.trie = newTrie;
-        this.closed = false;
+        return this.trie;
+    }
+
+    private byte[] getStorageRoot() {
+        return this.trie == null ? this.trieRoot.getBytes() : this.trie.getHash().getBytes();
     }
 
     private String getStorageHashAsString() {
-        return getHashAsString(this.trie.getHash().getBytes());
+        return getHashAsString(this.getStorageRoot());
     }
 
     private static String getHashAsString(byte[] hash) {
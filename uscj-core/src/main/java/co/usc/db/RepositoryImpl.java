@@ -23,6 +23,7 @@ import co.usc.core.UscAddress;
 import co.usc.crypto.Keccak256;
 import co.usc.trie.Trie;
 import co.usc.trie.TrieImpl;
+import co.usc.trie.TrieNodeCache;
 import co.usc.trie.TrieStore;
 import org.ethereum.core.AccountState;
 import org.ethereum.core.Block;
@@ -43,6 +44,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.ethereum.crypto.HashUtil.EMPTY_TRIE_HASH;
 
@@ -55,6 +57,8 @@ public class RepositoryImpl implements Repository {
 
     private static final Logger logger = LoggerFactory.getLogger("repository");
 
+    private static final int NODE_CACHE_SIZE = 50000;
+
     private TrieStore store;
     private Trie trie;
     private DetailsDataStore detailsDataStore;
@@ -62,6 +66,10 @@ public class RepositoryImpl implements Repository {
     private TrieStore.Pool trieStorePool;
     private int memoryStorageLimit;
 
+    // shared by the read only snapshots of this repository and of its snapshots
+    private final TrieNodeCache nodeCache;
+    private final Map<Keccak256, byte[]> codeCache;
+
     public RepositoryImpl(TrieStore store, TrieStore.Pool trieStorePool, int memoryStorageLimit) {
         this(store, new HashMapDB(), trieStorePool, memoryStorageLimit);
     }
@@ -72,19 +80,23 @@ public class RepositoryImpl implements Repository {
             TrieStore.Pool trieStorePool,
             int memoryStorageLimit) {
         this(store, new DetailsDataStore(new DatabaseImpl(detailsDS), trieStorePool, memoryStorageLimit),
-             trieStorePool, memoryStorageLimit);
+             trieStorePool, memoryStorageLimit, new TrieNodeCache(NODE_CACHE_SIZE), new ConcurrentHashMap<>());
     }
 
     private RepositoryImpl(
             TrieStore store,
             DetailsDataStore detailsDataStore,
             TrieStore.Pool trieStorePool,
-            int memoryStorageLimit) {
+            int memoryStorageLimit,
+            TrieNodeCache nodeCache,
+            Map<Keccak256, byte[]> codeCache) {
         this.store = store;
         this.trie = new TrieImpl(store, true);
         this.detailsDataStore = detailsDataStore;
         this.trieStorePool = trieStorePool;
         this.memoryStorageLimit = memoryStorageLimit;
+        this.nodeCache = nodeCache;
+        this.codeCache = codeCache;
     }
 
     @Override
@@ -292,13 +304,29 @@ public class RepositoryImpl implements Repository {
 
     @Override
     public synchronized void flush() {
-        if (this.detailsDataStore != null) {
-            this.detailsDataStore.flush();
-        }
-
+        // the state trie goes first, so the details batch (which also records the flushed state root)
+        // never refers to nodes that are not on disk yet
         if (this.store != null) {
             this.trie.save();
         }
+
+        if (this.detailsDataStore != null) {
+            this.detailsDataStore.flush(this.trie.getHash().getBytes());
+        }
+    }
+
+    /**
+     * @return the state root of the last complete flush, or null if it was never flushed
+     */
+    public synchronized byte[] getFlushedRoot() {
+        return this.detailsDataStore == null ? null : this.detailsDataStore.getFlushedStateRoot();
+    }
+
+    /**
+     * @return whether the trie with this root can be loaded from the store
+     */
+    public synchronized boolean isStateSaved(byte[] root) {
+        return this.store == null || Arrays.equals(root, EMPTY_TRIE_HASH) || this.store.retrieve(root) != null;
     }
 
     @Override
@@ -417,11 +445,20 @@ public class RepositoryImpl implements Repository {
 
     @Override
     public synchronized Repository getSnapshotTo(byte[] root) {
-        RepositoryImpl snapshotRepository = new RepositoryImpl(this.store, this.detailsDataStore, this.trieStorePool, this.memoryStorageLimit);
+        RepositoryImpl snapshotRepository = new RepositoryImpl(this.store, this.detailsDataStore, this.trieStorePool, this.memoryStorageLimit, this.nodeCache, this.codeCache);
         snapshotRepository.syncToRoot(root);
         return snapshotRepository;
     }
 
+    /**
+     * Doesn't take this repository lock, so reads at an older root don't wait for a block being
+     * imported or flushed. The root must have been saved, as the one of any block in the store.
+     */
+    @Override
+    public Repository getReadOnlySnapshotTo(byte[] root) {
+        return new RepositorySnapshot(root, this.store, this.detailsDataStore, this.trieStorePool, this.memoryStorageLimit, this.nodeCache, this.codeCache);
+    }
+
     @Override
     public synchronized DetailsDataStore getDetailsDataStore() {
         return this.detailsDataStore;
@@ -0,0 +1,522 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.db;
+
+import co.usc.core.Coin;
+import co.usc.core.UscAddress;
+import co.usc.crypto.Keccak256;
+import co.usc.trie.TrieImpl;
+import co.usc.trie.TrieNodeCache;
+import co.usc.trie.TrieSerializationException;
+import co.usc.trie.TrieStore;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.db.ContractDetails;
+import org.ethereum.db.ContractDetailsCacheImpl;
+import org.ethereum.db.DetailsDataStore;
+import org.ethereum.db.RepositoryTrack;
+import org.ethereum.util.ByteUtil;
+import org.ethereum.vm.DataWord;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.ethereum.core.AccountState.EMPTY_DATA_HASH;
+import static org.ethereum.crypto.HashUtil.EMPTY_TRIE_HASH;
+import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
+
+/**
+ * Read only view of the state at a fixed root, for the calls that only look at it (eth_call,
+ * eth_estimateGas, balance and storage queries).
+ *
+ * Unlike a {@link RepositoryImpl} snapshot it takes no lock of the main repository: accounts and
+ * storage are read straight from the stored tries through a node cache shared by all the snapshots,
+ * and code is looked up once per code hash. Nothing it reads can change, so it can be used from any
+ * number of threads. Changes are made in a track on top of it and are never written back.
+ */
+public class RepositorySnapshot implements Repository {
+    private static final int MAX_CODE_CACHE_SIZE = 1024;
+
+    private final byte[] root;
+    private final TrieImpl trie;
+    private final TrieStore store;
+    private final DetailsDataStore detailsDataStore;
+    private final TrieStore.Pool trieStorePool;
+    private final int memoryStorageLimit;
+    private final TrieNodeCache nodeCache;
+    private final Map<Keccak256, byte[]> codeCache;
+
+    // storage tries of most contracts share a store, but the lookup takes a global lock
+    private final Map<UscAddress, TrieStore> storageStores = new ConcurrentHashMap<>();
+
+    RepositorySnapshot(
+            byte[] root,
+            TrieStore store,
+            DetailsDataStore detailsDataStore,
+            TrieStore.Pool trieStorePool,
+            int memoryStorageLimit,
+            TrieNodeCache nodeCache,
+            Map<Keccak256, byte[]> codeCache) {
+        this.root = root.clone();
+        this.store = store;
+        this.detailsDataStore = detailsDataStore;
+        this.trieStorePool = trieStorePool;
+        this.memoryStorageLimit = memoryStorageLimit;
+        this.nodeCache = nodeCache;
+        this.codeCache = codeCache;
+        this.trie = retrieveTrie(root, store);
+    }
+
+    @Override
+    public AccountState getAccountState(UscAddress addr) {
+        byte[] accountData = this.trie == null ? null : this.trie.get(addr.getBytes(), this.nodeCache);
+
+        if (accountData == null || accountData.length == 0) {
+            return null;
+        }
+
+        return new AccountState(accountData);
+    }
+
+    @Override
+    public boolean isExist(UscAddress addr) {
+        return getAccountState(addr) != null;
+    }
+
+    @Override
+    public ContractDetails getContractDetails(UscAddress addr) {
+        return new SnapshotContractDetails(addr, getAccountState(addr));
+    }
+
+    @Override
+    public byte[] getCode(UscAddress addr) {
+        AccountState account = getAccountState(addr);
+
+        if (account == null || account.isHibernated()) {
+            return EMPTY_BYTE_ARRAY;
+        }
+
+        return getCode(addr, account.getCodeHash());
+    }
+
+    @Override
+    public DataWord getStorageValue(UscAddress addr, DataWord key) {
+        return getContractDetails(addr).get(key);
+    }
+
+    @Override
+    public byte[] getStorageBytes(UscAddress addr, DataWord key) {
+        return getContractDetails(addr).getBytes(key);
+    }
+
+    @Override
+    public Coin getBalance(UscAddress addr) {
+        AccountState account = getAccountState(addr);
+        return (account == null) ? new AccountState().getBalance() : account.getBalance();
+    }
+
+    @Override
+    public BigInteger getNonce(UscAddress addr) {
+        AccountState account = getAccountState(addr);
+        return (account == null) ? new AccountState().getNonce() : account.getNonce();
+    }
+
+    @Override
+    public Set<UscAddress> getAccountsKeys() {
+        Set<UscAddress> result = new HashSet<>();
+
+        for (UscAddress addr : detailsDataStore.keys()) {
+            if (this.isExist(addr)) {
+                result.add(addr);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void loadAccount(UscAddress addr,
+                            Map<UscAddress, AccountState> cacheAccounts,
+                            Map<UscAddress, ContractDetails> cacheDetails) {
+        // a fresh decode every time, so there is nothing shared to clone
+        AccountState account = getAccountState(addr);
+        ContractDetails details = new SnapshotContractDetails(addr, account);
+
+        cacheAccounts.put(addr, account == null ? new AccountState() : account);
+        cacheDetails.put(addr, new ContractDetailsCacheImpl(details));
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new RepositoryTrack(this, trieStorePool, memoryStorageLimit);
+    }
+
+    @Override
+    public Repository getSnapshotTo(byte[] root) {
+        return new RepositorySnapshot(root, store, detailsDataStore, trieStorePool, memoryStorageLimit, nodeCache, codeCache);
+    }
+
+    @Override
+    public byte[] getRoot() {
+        return this.root.clone();
+    }
+
+    @Override
+    public DetailsDataStore getDetailsDataStore() {
+        return this.detailsDataStore;
+    }
+
+    @Override
+    public void dumpState(Block block, long gasUsed, int txNumber, byte[] txHash) {
+        // To be implemented
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the stores belong to the main repository
+    }
+
+    @Override
+    public AccountState createAccount(UscAddress addr) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(UscAddress addr) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void hibernate(UscAddress addr) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BigInteger increaseNonce(UscAddress addr) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void saveCode(UscAddress addr, byte[] code) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addStorageRow(UscAddress addr, DataWord key, DataWord value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addStorageBytes(UscAddress addr, DataWord key, byte[] value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Coin addBalance(UscAddress addr, Coin value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flush() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flushNoReconnect() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void commit() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void rollback() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void syncToRoot(byte[] root) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBatch(Map<UscAddress, AccountState> accountStates,
+                            Map<UscAddress, ContractDetails> contractDetailes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateContractDetails(UscAddress addr, ContractDetails contractDetails) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateAccountState(UscAddress addr, AccountState accountState) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Nullable
+    private TrieImpl retrieveTrie(byte[] hash, TrieStore trieStore) {
+        if (Arrays.equals(hash, EMPTY_TRIE_HASH)) {
+            return null;
+        }
+
+        TrieImpl result = nodeCache.get(new Keccak256(hash), trieStore);
+
+        if (result == null) {
+            throw new TrieSerializationException("Error non existent trie with hash " + ByteUtil.toHexString(hash), null);
+        }
+
+        return result;
+    }
+
+    private byte[] getCode(UscAddress addr, byte[] codeHash) {
+        if (Arrays.equals(codeHash, EMPTY_DATA_HASH)) {
+            return EMPTY_BYTE_ARRAY;
+        }
+
+        Keccak256 key = new Keccak256(codeHash);
+        byte[] code = codeCache.get(key);
+
+        if (code == null) {
+            // the details of the main repository are fixed to the requested code hash on access,
+            // so both steps have to happen under its lock
+            synchronized (detailsDataStore) {
+                ContractDetails details = detailsDataStore.get(addr, codeHash);
+                code = details == null ? null : details.getCode();
+            }
+
+            if (code == null) {
+                return null;
+            }
+
+            if (Arrays.equals(Keccak256Helper.keccak256(code), codeHash)) {
+                if (codeCache.size() >= MAX_CODE_CACHE_SIZE) {
+                    codeCache.clear();
+                }
+
+                codeCache.put(key, code);
+            }
+        }
+
+        return code.clone();
+    }
+
+    private TrieStore getStorageStore(UscAddress addr) {
+        return storageStores.computeIfAbsent(addr,
+                a -> new ContractStorageStoreFactory(trieStorePool).getTrieStore(a.getBytes()));
+    }
+
+    /**
+     * Storage and code of an account as of the snapshot root. The rarely used calls that need the
+     * set of storage keys fall back to the details kept by the main repository.
+     */
+    private class SnapshotContractDetails implements ContractDetails {
+        private final UscAddress addr;
+        private final byte[] storageRoot;
+        private final byte[] codeHash;
+
+        private TrieImpl storageTrie;
+        private boolean storageTrieRetrieved;
+        private ContractDetails fullDetails;
+        private boolean fullDetailsRetrieved;
+
+        SnapshotContractDetails(UscAddress addr, @Nullable AccountState account) {
+            this.addr = addr;
+            this.storageRoot = account == null ? EMPTY_TRIE_HASH : account.getStateRoot();
+            this.codeHash = account == null ? EMPTY_DATA_HASH : account.getCodeHash();
+        }
+
+        @Override
+        public DataWord get(DataWord key) {
+            byte[] value = getBytes(key);
+
+            if (value == null || value.length == 0) {
+                return null;
+            }
+
+            return new DataWord(value);
+        }
+
+        @Override
+        public byte[] getBytes(DataWord key) {
+            TrieImpl storage = getStorageTrie();
+            return storage == null ? null : storage.get(key.getData(), nodeCache);
+        }
+
+        @Override
+        public byte[] getCode() {
+            return RepositorySnapshot.this.getCode(addr, codeHash);
+        }
+
+        @Override
+        public byte[] getCodeHash() {
+            return codeHash.clone();
+        }
+
+        @Override
+        public byte[] getStorageHash() {
+            return storageRoot.clone();
+        }
+
+        @Override
+        public byte[] getAddress() {
+            return addr.getBytes();
+        }
+
+        @Override
+        public int getStorageSize() {
+            ContractDetails details = getFullDetails();
+            return details == null ? 0 : details.getStorageSize();
+        }
+
+        @Override
+        public Set<DataWord> getStorageKeys() {
+            ContractDetails details = getFullDetails();
+            return details == null ? Collections.emptySet() : details.getStorageKeys();
+        }
+
+        @Override
+        public Map<DataWord, DataWord> getStorage(@Nullable Collection<DataWord> keys) {
+            ContractDetails details = getFullDetails();
+            return details == null ? Collections.emptyMap() : details.getStorage(keys);
+        }
+
+        @Override
+        public Map<DataWord, DataWord> getStorage() {
+            ContractDetails details = getFullDetails();
+            return details == null ? Collections.emptyMap() : details.getStorage();
+        }
+
+        @Override
+        public boolean isNullObject() {
+            ContractDetails details = getFullDetails();
+            return details == null || details.isNullObject();
+        }
+
+        @Override
+        public boolean isDirty() {
+            return false;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return false;
+        }
+
+        @Override
+        public void syncStorage() {
+            // nothing to save
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(DataWord key, DataWord value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putBytes(DataWord key, byte[] bytes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setCode(byte[] code) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setDirty(boolean dirty) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setDeleted(boolean deleted) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setStorage(List<DataWord> storageKeys, List<DataWord> storageValues) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setStorage(Map<DataWord, DataWord> storage) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setAddress(byte[] address) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContractDetails getSnapshotTo(byte[] hash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return "SnapshotContractDetails{address=" + addr + "}";
+        }
+
+        private TrieImpl getStorageTrie() {
+            if (!storageTrieRetrieved) {
+                storageTrie = retrieveTrie(storageRoot, getStorageStore(addr));
+                storageTrieRetrieved = true;
+            }
+
+            return storageTrie;
+        }
+
+        private ContractDetails getFullDetails() {
+            if (!fullDetailsRetrieved) {
+                synchronized (detailsDataStore) {
+                    ContractDetails details = detailsDataStore.get(addr, codeHash);
+                    fullDetails = details == null ? null : details.getSnapshotTo(storageRoot);
+                }
+
+                fullDetailsRetrieved = true;
+            }
+
+            return fullDetails;
+        }
+    }
+}
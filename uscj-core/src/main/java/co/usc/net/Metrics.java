@@ -173,6 +173,27 @@ public class Metrics {
         logEvent(event);
     }
 
+    // This function should be called when a block producer finishes building its block for a slot.
+    // The slack is the time left until the end of the slot once the block is built, negative if it was late.
+    public static void buildBlock(final Block block, final boolean speculative, final long buildNanos, final long slotTime, final long slotMillis) {
+        long slack = slotTime + slotMillis - currentTimeMillis();
+        String event = String.format("event: %s hash: %s number: %d txs: %d speculative: %b durationNanos: %d slackMillis: %d",
+                "buildBlock",
+                block == null ? "--" : block.getShortHash(),
+                block == null ? -1 : block.getNumber(),
+                block == null ? 0 : block.getTransactionsList().size(),
+                speculative,
+                buildNanos,
+                slack
+        );
+
+        logEvent(event);
+
+        if (slack < 0) {
+            logger.warn("Block {} built {} ms after the end of its slot", block == null ? "--" : block.getNumber(), -slack);
+        }
+    }
+
     /**
      * Successive calls to this method log metrics-information related to TransactionsMessage processing (and its steps)
      * It also keeps track of duration between successive steps as well as total duration (from "start" to "finish")
@@ -21,7 +21,6 @@ package co.usc.net;
 import co.usc.BpListManager.BlmTransaction;
 import co.usc.config.UscSystemProperties;
 import co.usc.core.bc.BlockChainStatus;
-import co.usc.crypto.Keccak256;
 import co.usc.net.messages.*;
 import co.usc.rpc.uos.UOSRpcChannel;
 import co.usc.scoring.EventType;
@@ -31,7 +30,6 @@ import com.google.common.annotations.VisibleForTesting;
 import org.ethereum.core.Block;
 import org.ethereum.core.BlockIdentifier;
 import org.ethereum.core.Transaction;
-import org.ethereum.crypto.HashUtil;
 import org.ethereum.net.server.ChannelManager;
 import org.ethereum.util.Utils;
 import org.json.JSONArray;
@@ -69,8 +67,10 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
     private BlockValidationRule blockValidationRule;
 
     private LinkedBlockingQueue<MessageTask> queue = new LinkedBlockingQueue<>();
-    private Set<Keccak256> receivedMessages = Collections.synchronizedSet(new HashSet<Keccak256>());
-    private long cleanMsgTimestamp = 0;
+    // each generation lasts half the cache duration, a message is remembered for one to two of them
+    private final ReceivedMessagesFilter receivedMessages = new ReceivedMessagesFilter(
+            RECEIVED_MESSAGES_CACHE_DURATION / 2, MAX_NUMBER_OF_MESSAGES_CACHED
+    );
 
     private volatile boolean stopped;
 
@@ -91,7 +91,6 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
         this.syncProcessor = syncProcessor;
         this.transactionGateway = transactionGateway;
         this.blockValidationRule = blockValidationRule;
-        this.cleanMsgTimestamp = System.currentTimeMillis();
         this.peerScoringManager = peerScoringManager;
         this.uosRpcChannel = uosRpcChannel;
     }
@@ -152,39 +151,23 @@ public class NodeMessageHandler implements MessageHandler, Runnable {
     @Override
     public void postMessage(MessageChannel sender, Message message) throws InterruptedException {
         logger.trace("Start post message (queue size {}) (message type {})", this.queue.size(), message.getMessageType());
-        // There's an obvious race condition here, but fear not.
-        // receivedMessages and logger are thread-safe
-        // cleanMsgTimestamp is a long replaced by the next value, we don't care
-        // enough about the precision of the value it takes
-        cleanExpiredMessages();
         tryAddMessage(sender, message);
         logger.trace("End post message (queue size {})", this.queue.size());
     }
 
     private void tryAddMessage(MessageChannel sender, Message message) {
-        Keccak256 encodedMessage = new Keccak256(HashUtil.keccak256(message.getEncoded()));
-        if (!receivedMessages.contains(encodedMessage)) {
-            if (message.getMessageType() == MessageType.BLOCK_MESSAGE || message.getMessageType() == MessageType.TRANSACTIONS) {
-                if (this.receivedMessages.size() >= MAX_NUMBER_OF_MESSAGES_CACHED) {
-                    this.receivedMessages.clear();
-                }
-                this.receivedMessages.add(encodedMessage);
-            }
-            if (!this.queue.offer(new MessageTask(sender, message))){
-                logger.trace("Queue full, message not added to the queue");
-            }
-        } else {
+        // only blocks and transactions are relayed, the copies of the rest are not remembered
+        MessageType messageType = message.getMessageType();
+        boolean relayed = messageType == MessageType.BLOCK_MESSAGE || messageType == MessageType.TRANSACTIONS;
+
+        if (relayed && !receivedMessages.add(message.getEncodedHash())) {
             recordEvent(sender, EventType.REPEATED_MESSAGE);
             logger.trace("Received message already known, not added to the queue");
+            return;
         }
-    }
 
-    private void cleanExpiredMessages() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - cleanMsgTimestamp > RECEIVED_MESSAGES_CACHE_DURATION) {
-            logger.trace("Cleaning {} messages from rlp queue", receivedMessages.size());
-            receivedMessages.clear();
-            cleanMsgTimestamp = currentTime;
+        if (!this.queue.offer(new MessageTask(sender, message))){
+            logger.trace("Queue full, message not added to the queue");
         }
     }
 
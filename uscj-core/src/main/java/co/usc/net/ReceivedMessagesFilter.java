@@ -0,0 +1,89 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.net;
+
+import co.usc.crypto.Keccak256;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Remembers the hashes of the received messages, to drop the copies other peers send.
+ *
+ * The hashes are kept in two generations: new hashes go to the current one, and when it gets
+ * too old or too big it becomes the previous one, dropping the old previous at once. So a hash
+ * is remembered for one to two generations, and no lock is taken to check or add one.
+ */
+class ReceivedMessagesFilter {
+    private final long generationDuration;
+    private final int generationSize;
+
+    private final AtomicReference<Generations> generations;
+
+    /**
+     * @param duration  milliseconds a generation lasts
+     * @param size      hashes a generation holds
+     */
+    ReceivedMessagesFilter(long duration, int size) {
+        this.generationDuration = duration;
+        this.generationSize = size;
+        this.generations = new AtomicReference<>(new Generations(ConcurrentHashMap.newKeySet(), System.currentTimeMillis()));
+    }
+
+    /**
+     * @return true the first time a hash is added, false for its copies
+     */
+    boolean add(Keccak256 hash) {
+        Generations current = rotateIfNeeded();
+
+        if (current.previous.contains(hash)) {
+            return false;
+        }
+
+        // a hash added to the current generation while it rotates is in the previous one afterwards
+        return current.hashes.add(hash);
+    }
+
+    private Generations rotateIfNeeded() {
+        Generations current = generations.get();
+        long now = System.currentTimeMillis();
+
+        if (now - current.start < generationDuration && current.hashes.size() < generationSize) {
+            return current;
+        }
+
+        Generations next = new Generations(current.hashes, now);
+
+        // if another thread rotated first, its generations are as good
+        return generations.compareAndSet(current, next) ? next : generations.get();
+    }
+
+    private static class Generations {
+        private final Set<Keccak256> hashes = ConcurrentHashMap.newKeySet();
+        private final Set<Keccak256> previous;
+        private final long start;
+
+        Generations(Set<Keccak256> previous, long start) {
+            this.previous = previous;
+            this.start = start;
+        }
+    }
+}
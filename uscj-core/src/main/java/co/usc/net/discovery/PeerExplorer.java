@@ -46,6 +46,7 @@ import java.util.stream.Collectors;
 public class PeerExplorer {
     private static final Logger logger = LoggerFactory.getLogger(PeerExplorer.class);
     private static final int MAX_NODES_PER_MSG = 20;
+    private static final int NEIGHBORS_RANDOM_NODES = 5;
     private static final int MAX_NODES_TO_ASK = 24;
     private static final int MAX_NODES_TO_CHECK = 16;
     private static final int RETRIES_COUNT = 3;
@@ -164,7 +165,7 @@ public class PeerExplorer {
         Node connectedNode = this.establishedConnections.get(nodeId);
 
         if (connectedNode != null) {
-            List<Node> nodesToSend = this.distanceTable.getClosestNodes(nodeId);
+            List<Node> nodesToSend = getNeighbors(nodeId);
             logger.debug("About to send [{}] neighbors to ip[{}] port[{}] nodeId[{}]", nodesToSend.size(), connectedNode.getHost(), connectedNode.getPort(), connectedNode.getHexIdShort());
             this.sendNeighbors(connectedNode.getAddress(), nodesToSend, message.getMessageId());
             updateEntry(connectedNode);
@@ -262,7 +263,7 @@ public class PeerExplorer {
     }
 
     public NeighborsPeerMessage sendNeighbors(InetSocketAddress nodeAddress, List<Node> nodes, String id) {
-        List<Node> nodesToSend = getRandomizeLimitedList(nodes, MAX_NODES_PER_MSG, 5);
+        List<Node> nodesToSend = getRandomizeLimitedList(nodes, MAX_NODES_PER_MSG, NEIGHBORS_RANDOM_NODES);
         NeighborsPeerMessage sendNodesMessage = NeighborsPeerMessage.create(nodesToSend, id, this.key, networkId);
         udpChannel.write(new DiscoveryEvent(sendNodesMessage, nodeAddress));
         logger.debug(" [{}] Neighbors Sent to ip:[{}] port:[{}]", nodesToSend.size(), nodeAddress.getAddress().getHostAddress(), nodeAddress.getPort());
@@ -351,6 +352,27 @@ public class PeerExplorer {
         }
     }
 
+    /**
+     * The same nodes getRandomizeLimitedList picks from the whole table sorted by distance, the closest
+     * ones and a few random ones from the rest, without sorting the whole table.
+     */
+    private List<Node> getNeighbors(NodeID nodeId) {
+        List<Node> closest = this.distanceTable.getClosestNodes(nodeId, MAX_NODES_PER_MSG + 1);
+
+        if (closest.size() <= MAX_NODES_PER_MSG) {
+            return closest;
+        }
+
+        int limit = MAX_NODES_PER_MSG - NEIGHBORS_RANDOM_NODES;
+        List<Node> rest = new ArrayList<>(this.distanceTable.getAllNodes());
+        rest.removeAll(closest.subList(0, limit));
+
+        List<Node> ret = new ArrayList<>(closest.subList(0, limit - 1));
+        ret.addAll(collectRandomNodes(rest, NEIGHBORS_RANDOM_NODES));
+
+        return ret;
+    }
+
     private List<Node> getRandomizeLimitedList(List<Node> nodes, int maxNumber, int randomElements) {
         if (CollectionUtils.size(nodes) <= maxNumber) {
             return nodes;
@@ -70,6 +70,13 @@ public class Bucket {
         return new HashSet<>(this.entries.values());
     }
 
+    /**
+     * Live view of the entries, for readers that can do without a consistent snapshot
+     */
+    public Collection<BucketEntry> getEntriesView() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
     public synchronized BucketEntry getOldestEntry() {
         List<BucketEntry> bucketEntries = new ArrayList<>();
         bucketEntries.addAll(this.entries.values());
@@ -25,10 +25,13 @@ import org.ethereum.net.rlpx.Node;
  */
 public class BucketEntry {
     private final Node node;
+    // keccak256(keccak256(nodeId)), computed once for the distance calculations
+    private final byte[] hashedId;
     private long lastSeenTime;
 
     public BucketEntry(Node node) {
         this.node = node;
+        this.hashedId = DistanceCalculator.hash(node.getId());
         this.lastSeenTime = System.currentTimeMillis();
     }
 
@@ -36,6 +39,10 @@ public class BucketEntry {
         return this.node;
     }
 
+    public byte[] getHashedId() {
+        return this.hashedId;
+    }
+
     public long lastSeen() {
         return this.lastSeenTime;
     }
@@ -39,48 +39,32 @@ public class DistanceCalculator {
      * @return The distance between 2 nodes
      */
     public int calculateDistance(NodeID node1, NodeID node2) {
-        byte[] nodeId1 = HashUtil.keccak256(HashUtil.keccak256(node1.getID()));
-        byte[] nodeId2 = HashUtil.keccak256(HashUtil.keccak256(node2.getID()));
-        byte[] result = new byte[nodeId1.length];
-
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (byte) (((int) nodeId1[i]) ^ ((int) nodeId2[i]));
-        }
-
-        return msbPosition(result);
+        return calculateDistance(hash(node1), hash(node2));
     }
 
     /**
-     *
-     * @param result
-     * @return The MSB position of the XOR result.
+     * Same as calculateDistance(NodeID, NodeID), with the already hashed ids
+     * @param hashedId1 keccak256(keccak256(nodeId)) of the first node
+     * @param hashedId2 keccak256(keccak256(nodeId)) of the second node
+     * @return The distance between 2 nodes
      */
-    private int msbPosition(byte[] result) {
+    public int calculateDistance(byte[] hashedId1, byte[] hashedId2) {
         int distance = this.maxDistance;
 
-        for (byte b : result) {
+        for (int i = 0; i < hashedId1.length; i++) {
+            int b = (hashedId1[i] ^ hashedId2[i]) & 0xff;
+
             if (b == 0) {
                 distance -= 8;
             } else {
-                distance -= positionsToMove(b);
-                return distance;
+                return distance - (Integer.numberOfLeadingZeros(b) - 24);
             }
         }
 
         return distance;
     }
 
-    private int positionsToMove(byte b) {
-        int count = 0;
-
-        for (int i = 7; i >= 0; i--) {
-            if (((b & 0xff)& (1 << i)) == 0) {
-                count++;
-            } else {
-                return count;
-            }
-        }
-
-        return count;
+    public static byte[] hash(NodeID nodeId) {
+        return HashUtil.keccak256(HashUtil.keccak256(nodeId.getID()));
     }
 }
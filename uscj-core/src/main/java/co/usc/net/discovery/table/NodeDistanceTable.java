@@ -31,10 +31,12 @@ import java.util.stream.Collectors;
 public class NodeDistanceTable {
     private Map<Integer, Bucket> buckets = new ConcurrentHashMap<>();
     private final Node localNode;
+    private final byte[] localHashedId;
     private final DistanceCalculator distanceCalculator;
 
     public NodeDistanceTable(int numberOfBuckets, int entriesPerBucket, Node localNode) {
         this.localNode = localNode;
+        this.localHashedId = DistanceCalculator.hash(localNode.getId());
         this.distanceCalculator = new DistanceCalculator(numberOfBuckets);
 
         for (int i = 0; i < numberOfBuckets; i++) {
@@ -50,17 +52,60 @@ public class NodeDistanceTable {
         return getNodeBucket(node).removeNode(node);
     }
 
-    public synchronized List<Node> getClosestNodes(NodeID nodeId) {
-        return getAllNodes().stream()
-                .sorted(new NodeDistanceComparator(nodeId, this.distanceCalculator))
-                .collect(Collectors.toList());
+    /**
+     * @return all the nodes, closest to the given node id first
+     */
+    public List<Node> getClosestNodes(NodeID nodeId) {
+        return getClosestNodes(nodeId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the count nodes closest to the given node id, closest first.
+     *
+     * The nodes are taken bucket by bucket, without sorting the table: being d the distance between the local
+     * node and the target, the nodes of the bucket of d are the only ones closer to the target than d, the nodes
+     * of the buckets below are all at distance d of the target, and the nodes of the buckets above keep the same
+     * distance to the target than to the local node.
+     */
+    public List<Node> getClosestNodes(NodeID nodeId, int count) {
+        byte[] targetHashedId = DistanceCalculator.hash(nodeId);
+        int targetBucket = getBucketId(this.distanceCalculator.calculateDistance(this.localHashedId, targetHashedId));
+
+        List<Node> result = new ArrayList<>();
+
+        List<BucketEntry> sameBucket = new ArrayList<>(this.buckets.get(targetBucket).getEntriesView());
+        sameBucket.sort(Comparator.comparingInt(entry -> this.distanceCalculator.calculateDistance(targetHashedId, entry.getHashedId())));
+        addNodes(result, sameBucket, count);
+
+        for (int i = targetBucket - 1; i >= 0 && result.size() < count; i--) {
+            addNodes(result, this.buckets.get(i).getEntriesView(), count);
+        }
+
+        for (int i = targetBucket + 1; i < this.buckets.size() && result.size() < count; i++) {
+            addNodes(result, this.buckets.get(i).getEntriesView(), count);
+        }
+
+        return result;
+    }
+
+    private static void addNodes(List<Node> result, Collection<BucketEntry> entries, int count) {
+        for (BucketEntry entry : entries) {
+            if (result.size() >= count) {
+                return;
+            }
+
+            result.add(entry.getNode());
+        }
     }
 
     private Bucket getNodeBucket(Node node) {
-        int distance = this.distanceCalculator.calculateDistance(this.localNode.getId(), node.getId()) - 1;
-        distance = (distance >= 0) ? distance : 0;
+        int distance = this.distanceCalculator.calculateDistance(this.localHashedId, DistanceCalculator.hash(node.getId()));
+
+        return this.buckets.get(getBucketId(distance));
+    }
 
-        return this.buckets.get(distance);
+    private static int getBucketId(int distance) {
+        return Math.max(distance - 1, 0);
     }
 
     public Set<Node> getAllNodes() {
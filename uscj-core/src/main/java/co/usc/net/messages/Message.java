@@ -18,7 +18,9 @@
 
 package co.usc.net.messages;
 
+import co.usc.crypto.Keccak256;
 import com.google.common.annotations.VisibleForTesting;
+import org.ethereum.crypto.HashUtil;
 import org.ethereum.util.RLP;
 import org.ethereum.util.RLPElement;
 import org.ethereum.util.RLPList;
@@ -29,6 +31,8 @@ import java.util.ArrayList;
  * Created by ajlopez on 5/10/2016.
  */
 public abstract class Message {
+    // hash of the encoded message, taken from the received bytes when it's decoded
+    private Keccak256 hash;
 
     public abstract MessageType getMessageType();
 
@@ -40,6 +44,14 @@ public abstract class Message {
         return RLP.encodeList(type, body);
     }
 
+    public Keccak256 getEncodedHash() {
+        if (hash == null) {
+            hash = new Keccak256(HashUtil.keccak256(getEncoded()));
+        }
+
+        return hash;
+    }
+
     @VisibleForTesting
     static Message create(byte[] encoded) {
         return create((RLPList) RLP.decode2(encoded).get(0));
@@ -52,7 +64,14 @@ public abstract class Message {
             int type = paramsList.get(0).getRLPData()[0];
             MessageType messageType = MessageType.valueOfType(type);
             RLPList list = (RLPList) RLP.decode2(body).get(0);
-            return messageType.createMessage(list);
+            Message message = messageType.createMessage(list);
+
+            // the received bytes are the encoding, there's no need to encode the message again to hash it
+            if (message != null && paramsList instanceof RLPList && ((RLPList) paramsList).getRLPData() != null) {
+                message.hash = new Keccak256(HashUtil.keccak256(((RLPList) paramsList).getRLPData()));
+            }
+
+            return message;
 
         }
         return null;
@@ -17,42 +17,90 @@
  */
 package co.usc.rpc;
 
-import co.usc.rpc.modules.eth.subscribe.BlockHeaderNotification;
-import co.usc.rpc.modules.eth.subscribe.EthSubscriptionNotification;
-import co.usc.rpc.modules.eth.subscribe.EthSubscriptionParams;
-import co.usc.rpc.modules.eth.subscribe.SubscriptionId;
+import co.usc.rpc.modules.eth.subscribe.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
 import org.ethereum.core.TransactionReceipt;
 import org.ethereum.facade.Ethereum;
 import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.rpc.AddressesTopicsFilter;
+import org.ethereum.rpc.LogFilterIndex;
+import org.ethereum.rpc.TypeConverter;
+import org.ethereum.rpc.Web3;
+import org.ethereum.vm.LogInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This manages subscriptions and emits events to interested clients.
  * Can only be used with the WebSockets transport.
+ *
+ * Each notification is serialized once, and only the subscription id is spliced in for every client.
+ * A client with more bytes pending than the channel write buffer high water mark misses the
+ * notifications until it catches up, and it's disconnected when that lasts longer than the
+ * disconnect timeout.
  */
 public class EthSubscriptionNotificationEmitter {
     private static final Logger LOGGER = LoggerFactory.getLogger(EthSubscriptionNotificationEmitter.class);
 
-    private final Map<SubscriptionId, Channel> subscriptions = new ConcurrentHashMap<>();
+    private static final long DEFAULT_DISCONNECT_TIMEOUT = 60;
+
+    private static final AttributeKey<DeliveryState> DELIVERY_STATE = AttributeKey.valueOf("notificationDeliveryState");
+
+    // stands for the subscription id in the serialized notifications
+    private static final SubscriptionId PLACEHOLDER_ID = new SubscriptionId();
+    private static final String PLACEHOLDER = TypeConverter.toJsonHex(PLACEHOLDER_ID.getId());
+
+    private final Map<SubscriptionId, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<SubscriptionId, LogsSubscription> logsSubscriptions = new ConcurrentHashMap<>();
+    private final LogFilterIndex logFilterIndex = new LogFilterIndex();
     private final JsonRpcSerializer jsonRpcSerializer;
+    private final long disconnectTimeout;
+
+    // state of the block being emitted, only used by the listener
+    private final Set<Channel> pendingFlush = new HashSet<>();
+    private long emitStart;
+    private LogInfo lastLogInfo;
+    private NotificationTemplate lastLogTemplate;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private volatile long lastLag;
 
     public EthSubscriptionNotificationEmitter(Ethereum ethereum, JsonRpcSerializer jsonRpcSerializer) {
+        this(ethereum, jsonRpcSerializer, DEFAULT_DISCONNECT_TIMEOUT);
+    }
+
+    /**
+     * @param disconnectTimeout seconds a client can go on missing notifications before it's disconnected.
+     */
+    public EthSubscriptionNotificationEmitter(Ethereum ethereum, JsonRpcSerializer jsonRpcSerializer, long disconnectTimeout) {
         ethereum.addListener(new EthereumListenerAdapter() {
             @Override
             public void onBlock(Block block, List<TransactionReceipt> receipts) {
-                emit(block);
+                emit(block, receipts);
             }
         });
         this.jsonRpcSerializer = jsonRpcSerializer;
+        this.disconnectTimeout = TimeUnit.SECONDS.toNanos(disconnectTimeout);
     }
 
     /**
@@ -61,7 +109,20 @@ public class EthSubscriptionNotificationEmitter {
      */
     public SubscriptionId subscribe(Channel channel) {
         SubscriptionId subscriptionId = new SubscriptionId();
-        subscriptions.put(subscriptionId, channel);
+        subscriptions.put(subscriptionId, new Subscription(subscriptionId, channel));
+        return subscriptionId;
+    }
+
+    /**
+     * @param channel a Netty channel to send the logs to.
+     * @param filter the addresses and topics of the logs, null for every log.
+     * @return a subscription id which should be used as an unsubscribe parameter.
+     */
+    public SubscriptionId subscribeLogs(Channel channel, Web3.FilterRequest filter) {
+        SubscriptionId subscriptionId = new SubscriptionId();
+        LogsSubscription subscription = new LogsSubscription(subscriptionId, channel);
+        logsSubscriptions.put(subscriptionId, subscription);
+        logFilterIndex.add(AddressesTopicsFilter.fromFilterRequest(filter == null ? new Web3.FilterRequest() : filter), subscription);
         return subscriptionId;
     }
 
@@ -69,6 +130,13 @@ public class EthSubscriptionNotificationEmitter {
      * @return whether the unsubscription succeeded.
      */
     public boolean unsubscribe(SubscriptionId subscriptionId) {
+        LogsSubscription logsSubscription = logsSubscriptions.remove(subscriptionId);
+
+        if (logsSubscription != null) {
+            logFilterIndex.remove(logsSubscription);
+            return true;
+        }
+
         return subscriptions.remove(subscriptionId) != null;
     }
 
@@ -76,23 +144,191 @@ public class EthSubscriptionNotificationEmitter {
      * Clear all subscriptions for channel.
      */
     public void unsubscribe(Channel channel) {
-        subscriptions.values().removeIf(channel::equals);
+        subscriptions.values().removeIf(subscription -> subscription.channel.equals(channel));
+
+        logsSubscriptions.values().removeIf(subscription -> {
+            if (!subscription.channel.equals(channel)) {
+                return false;
+            }
+
+            logFilterIndex.remove(subscription);
+            return true;
+        });
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /**
+     * Notifications not sent because their clients were too far behind
+     */
+    public long getDroppedCount() {
+        return dropped.get();
     }
 
-    private void emit(Block block) {
-        BlockHeaderNotification header = new BlockHeaderNotification(block);
+    public long getDisconnectedCount() {
+        return disconnected.get();
+    }
+
+    /**
+     * Milliseconds from a block event to the last notification written to the socket
+     */
+    public long getLastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLag);
+    }
+
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLag.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("subscriptions %d, logs subscriptions %d: sent %d, dropped %d, disconnected %d, lag %d ms (max %d ms)",
+                subscriptions.size(), logsSubscriptions.size(), getSentCount(), getDroppedCount(),
+                getDisconnectedCount(), getLastLagMillis(), getMaxLagMillis());
+    }
 
-        subscriptions.forEach((SubscriptionId id, Channel channel) -> {
-            EthSubscriptionNotification request = new EthSubscriptionNotification(
-                    new EthSubscriptionParams(id, header)
+    private void emit(Block block, List<TransactionReceipt> receipts) {
+        emitStart = System.nanoTime();
+
+        if (!subscriptions.isEmpty()) {
+            NotificationTemplate header = serialize(new BlockHeaderNotification(block));
+
+            if (header != null) {
+                subscriptions.values().forEach(subscription -> deliver(subscription, header));
+            }
+        }
+
+        logFilterIndex.onBlock(block, receipts);
+        lastLogInfo = null;
+        lastLogTemplate = null;
+
+        pendingFlush.forEach(Channel::flush);
+        pendingFlush.clear();
+
+        LOGGER.debug("Notifications for block {} emitted, {}", block.getNumber(), this);
+    }
+
+    private void emitLog(LogsSubscription subscription, LogInfo logInfo, Block block, int txIndex, Transaction tx, int logIndex) {
+        // the subscriptions matching a log are called one after the other, they share its serialization
+        if (logInfo != lastLogInfo) {
+            lastLogInfo = logInfo;
+            lastLogTemplate = serialize(new LogsNotification(logInfo, block, txIndex, tx, logIndex));
+        }
+
+        if (lastLogTemplate != null) {
+            deliver(subscription, lastLogTemplate);
+        }
+    }
+
+    private NotificationTemplate serialize(EthSubscriptionNotificationDTO result) {
+        try {
+            String msg = jsonRpcSerializer.serializeMessage(new EthSubscriptionNotification(
+                    new EthSubscriptionParams(PLACEHOLDER_ID, result)
+            ));
+            int index = msg.indexOf(PLACEHOLDER);
+
+            return new NotificationTemplate(
+                    msg.substring(0, index).getBytes(StandardCharsets.UTF_8),
+                    msg.substring(index + PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8)
             );
+        } catch (IOException e) {
+            LOGGER.error("Couldn't serialize result for notification", e);
+            return null;
+        }
+    }
+
+    private void deliver(Subscription subscription, NotificationTemplate template) {
+        Channel channel = subscription.channel;
+
+        if (!canWrite(channel)) {
+            return;
+        }
 
-            try {
-                String msg = jsonRpcSerializer.serializeMessage(request);
-                channel.writeAndFlush(new TextWebSocketFrame(msg));
-            } catch (IOException e) {
-                LOGGER.error("Couldn't serialize block header result for notification", e);
+        // the template arrays are shared by every client, no copy is made
+        ByteBuf content = Unpooled.wrappedBuffer(template.prefix, subscription.jsonId, template.suffix);
+        long start = emitStart;
+
+        channel.write(new TextWebSocketFrame(content)).addListener(future -> {
+            if (future.isSuccess()) {
+                long lag = System.nanoTime() - start;
+                lastLag = lag;
+                maxLag.accumulateAndGet(lag, Math::max);
+                sent.incrementAndGet();
             }
         });
+
+        pendingFlush.add(channel);
+    }
+
+    private boolean canWrite(Channel channel) {
+        Attribute<DeliveryState> attribute = channel.attr(DELIVERY_STATE);
+        DeliveryState state = attribute.get();
+
+        if (state == null) {
+            state = new DeliveryState();
+            attribute.set(state);
+        }
+
+        if (channel.isWritable()) {
+            state.behind = false;
+            return true;
+        }
+
+        dropped.incrementAndGet();
+        long now = System.nanoTime();
+
+        if (!state.behind) {
+            state.behind = true;
+            state.behindSince = now;
+            LOGGER.debug("WebSocket client {} is behind, dropping its notifications", channel.remoteAddress());
+        } else if (now - state.behindSince > disconnectTimeout && channel.isOpen()) {
+            LOGGER.info("Disconnecting WebSocket client {}, it didn't read its notifications for {} seconds",
+                    channel.remoteAddress(), TimeUnit.NANOSECONDS.toSeconds(now - state.behindSince));
+            disconnected.incrementAndGet();
+            channel.close();
+        }
+
+        return false;
+    }
+
+    private static class Subscription {
+        final Channel channel;
+        final byte[] jsonId;
+
+        Subscription(SubscriptionId id, Channel channel) {
+            this.channel = channel;
+            this.jsonId = TypeConverter.toJsonHex(id.getId()).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private class LogsSubscription extends Subscription implements LogFilterIndex.LogMatchListener {
+        LogsSubscription(SubscriptionId id, Channel channel) {
+            super(id, channel);
+        }
+
+        @Override
+        public void onLogMatch(LogInfo logInfo, Block block, int txIndex, Transaction tx, int logIndex) {
+            emitLog(this, logInfo, block, txIndex, tx, logIndex);
+        }
+    }
+
+    /**
+     * A serialized notification, split where the subscription id goes
+     */
+    private static class NotificationTemplate {
+        private final byte[] prefix;
+        private final byte[] suffix;
+
+        NotificationTemplate(byte[] prefix, byte[] suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private static class DeliveryState {
+        private boolean behind;
+        private long behindSince;
     }
 }
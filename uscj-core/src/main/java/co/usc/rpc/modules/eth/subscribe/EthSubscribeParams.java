@@ -21,22 +21,33 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.ethereum.rpc.Web3;
 
 import java.util.Objects;
 
 @JsonFormat(shape=JsonFormat.Shape.ARRAY)
-@JsonPropertyOrder({"subscription"})
+@JsonPropertyOrder({"subscription", "filter"})
 public class EthSubscribeParams {
 
     private final EthSubscribeTypes subscription;
+    private final Web3.FilterRequest filter;
 
     @JsonCreator
     public EthSubscribeParams(
-            @JsonProperty("subscription") EthSubscribeTypes subscription) {
+            @JsonProperty("subscription") EthSubscribeTypes subscription,
+            @JsonProperty("filter") Web3.FilterRequest filter) {
         this.subscription = Objects.requireNonNull(subscription);
+        this.filter = filter;
     }
 
     public EthSubscribeTypes getSubscription() {
         return subscription;
     }
+
+    /**
+     * @return the address and topics of a logs subscription, null when not given
+     */
+    public Web3.FilterRequest getFilter() {
+        return filter;
+    }
 }
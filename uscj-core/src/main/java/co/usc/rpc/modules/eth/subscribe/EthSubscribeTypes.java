@@ -21,5 +21,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 public enum EthSubscribeTypes {
     @JsonProperty("newHeads")
-    NEW_HEADS
+    NEW_HEADS,
+    @JsonProperty("logs")
+    LOGS
 }
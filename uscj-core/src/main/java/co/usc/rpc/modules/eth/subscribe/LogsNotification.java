@@ -0,0 +1,97 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.rpc.modules.eth.subscribe;
+
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+
+import java.util.List;
+
+import static org.ethereum.rpc.TypeConverter.toJsonHex;
+
+/**
+ * The log DTO for JSON serialization purposes.
+ */
+public class LogsNotification implements EthSubscriptionNotificationDTO {
+    private final String logIndex;
+    private final String blockNumber;
+    private final String blockHash;
+    private final String transactionHash;
+    private final String transactionIndex;
+    private final String address;
+    private final String data;
+    private final String[] topics;
+
+    public LogsNotification(LogInfo logInfo, Block block, int txIndex, Transaction tx, int logIdx) {
+        logIndex = toJsonHex(logIdx);
+        blockNumber = toJsonHex(block.getNumber());
+        blockHash = block.getHashJsonString();
+        transactionHash = tx.getHash().toJsonString();
+        transactionIndex = toJsonHex(txIndex);
+        address = toJsonHex(logInfo.getAddress());
+        data = toJsonHex(logInfo.getData());
+
+        List<DataWord> logTopics = logInfo.getTopics();
+        topics = new String[logTopics.size()];
+
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = toJsonHex(logTopics.get(i).getData());
+        }
+    }
+
+    public String getLogIndex() {
+        return logIndex;
+    }
+
+    public String getBlockNumber() {
+        return blockNumber;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    public String getTransactionHash() {
+        return transactionHash;
+    }
+
+    public String getTransactionIndex() {
+        return transactionIndex;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public String[] getTopics() {
+        return topics;
+    }
+
+    public boolean getRemoved() {
+        // logs are notified as their blocks are connected, never as removed by a reorganization
+        return false;
+    }
+}
@@ -20,7 +20,9 @@ package co.usc.rpc.netty;
 
 import co.usc.rpc.JsonRpcMethodFilter;
 import co.usc.rpc.ModuleDescription;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -29,50 +31,215 @@ import io.netty.buffer.*;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import org.ethereum.core.Blockchain;
+import org.ethereum.facade.Ethereum;
 import org.ethereum.rpc.Web3;
 import org.ethereum.rpc.exception.UscErrorResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ChannelHandler.Sharable
 public class JsonRpcWeb3ServerHandler extends SimpleChannelInboundHandler<ByteBufHolder> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("jsonrpc");
 
+    // same codes other clients use when a request is not served because of the node limits
+    private static final int LIMIT_EXCEEDED_ERROR = -32005;
+    private static final int TIMEOUT_ERROR = -32006;
+
     private final ObjectMapper mapper = new ObjectMapper();
     private final JsonNodeFactory jsonNodeFactory = JsonNodeFactory.instance;
     private final JsonRpcBasicServer jsonRpcServer;
+    private final JsonRpcWorkerPool workerPool;
+    private final Web3ResponseCache responseCache;
 
-    public JsonRpcWeb3ServerHandler(Web3 service, List<ModuleDescription> filteredModules) {
-        this.jsonRpcServer = new JsonRpcBasicServer(service, service.getClass());
+    public JsonRpcWeb3ServerHandler(Web3 service, List<ModuleDescription> filteredModules, JsonRpcWorkerPool workerPool, Ethereum eth, Blockchain blockchain) {
+        this.workerPool = workerPool;
+        // the cached results have to be written by the same mapper that writes the rest of the responses
+        this.jsonRpcServer = new JsonRpcBasicServer(mapper, service, service.getClass());
+        this.responseCache = new Web3ResponseCache(eth, blockchain, mapper);
         jsonRpcServer.setRequestInterceptor(new JsonRpcMethodFilter(filteredModules));
         jsonRpcServer.setErrorResolver(new MultipleErrorResolver(new UscErrorResolver(), AnnotationsErrorResolver.INSTANCE, DefaultErrorResolver.INSTANCE));
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBufHolder request) throws Exception {
+        // the request is handled out of the event loop, so it needs to outlive this call
+        ByteBuf content = request.content().retain();
+        RequestMethods methods = readMethods(content);
+        JsonRpcWorkerPool.Lane lane = methods.lane;
+        AtomicBoolean answered = new AtomicBoolean();
+        // whoever sets it owns the content, the worker or the timeout when the worker never got to it
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicReference<Future<?>> pending = new AtomicReference<>();
+
+        ScheduledFuture<?> timeout = ctx.executor().schedule(() -> {
+            if (answered.compareAndSet(false, true)) {
+                if (started.compareAndSet(false, true)) {
+                    content.release();
+                }
+                cancel(pending.get());
+                workerPool.onTimeout(lane);
+                respond(ctx, buildErrorResult(TIMEOUT_ERROR, "Request timed out"));
+            }
+        }, workerPool.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+        Future<?> task = workerPool.submit(lane, () -> {
+            // skip the requests that timed out while queued
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                Web3Result result = handleRequest(content, methods.single);
+
+                if (answered.compareAndSet(false, true)) {
+                    timeout.cancel(false);
+                    respond(ctx, result);
+                } else {
+                    result.getContent().release();
+                }
+            } finally {
+                content.release();
+            }
+        });
+
+        if (task == null) {
+            timeout.cancel(false);
+            content.release();
+            answered.set(true);
+            respond(ctx, buildErrorResult(LIMIT_EXCEEDED_ERROR, "Too many requests, try again later"));
+            return;
+        }
+
+        // the timeout runs in this same event loop, so it always finds the task
+        pending.set(task);
+    }
+
+    /**
+     * Drops a queued request and interrupts a running one, so a timed out request stops holding a worker.
+     */
+    private static void cancel(Future<?> task) {
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    private Web3Result handleRequest(ByteBuf content, String method) {
         ByteBuf responseContent = Unpooled.buffer();
         int responseCode;
         try (ByteBufOutputStream os = new ByteBufOutputStream(responseContent);
-             ByteBufInputStream is = new ByteBufInputStream(request.content().retain())){
+             ByteBufInputStream is = new ByteBufInputStream(content.duplicate())){
+
+            // only the requests that may be answered from the cache are read twice
+            JsonNode request = responseCache.isCached(method) ? readRequest(content) : null;
+            Web3ResponseCache.Key cacheKey = request == null ? null : responseCache.getKey(request);
+
+            if (cacheKey != null) {
+                byte[] cached = responseCache.get(cacheKey, request);
+
+                if (cached != null) {
+                    responseContent.release();
+                    return new Web3Result(Unpooled.wrappedBuffer(cached), ErrorResolver.JsonError.OK.code);
+                }
+            }
 
             responseCode = jsonRpcServer.handleRequest(is, os);
+
+            if (cacheKey != null && responseCode == ErrorResolver.JsonError.OK.code) {
+                responseCache.put(cacheKey, new ByteBufInputStream(responseContent.duplicate()));
+            }
         } catch (Exception e) {
             String unexpectedErrorMsg = "Unexpected error";
             LOGGER.error(unexpectedErrorMsg, e);
-            int errorCode = ErrorResolver.JsonError.CUSTOM_SERVER_ERROR_LOWER;
-            responseContent = buildErrorContent(errorCode, unexpectedErrorMsg);
-            responseCode = errorCode;
+            responseContent.release();
+            return buildErrorResult(ErrorResolver.JsonError.CUSTOM_SERVER_ERROR_LOWER, unexpectedErrorMsg);
         }
 
-        ctx.fireChannelRead(new Web3Result(
+        return new Web3Result(
             responseContent,
             responseCode
-        ));
+        );
+    }
+
+    /**
+     * @return the request tree, or null if it is malformed and has to be answered by the JSON-RPC server
+     */
+    private JsonNode readRequest(ByteBuf content) {
+        try (InputStream is = new ByteBufInputStream(content.duplicate())) {
+            return mapper.readTree(is);
+        } catch (IOException e) {
+            LOGGER.trace("Unable to read the request", e);
+            return null;
+        }
+    }
+
+    private void respond(ChannelHandlerContext ctx, Web3Result result) {
+        if (ctx.executor().inEventLoop()) {
+            ctx.fireChannelRead(result);
+        } else {
+            ctx.executor().execute(() -> ctx.fireChannelRead(result));
+        }
+    }
+
+    /**
+     * Finds where the request has to run from the invoked method names, without building the whole tree.
+     * For a batch the lane of its most expensive method is used.
+     */
+    private RequestMethods readMethods(ByteBuf content) {
+        JsonRpcWorkerPool.Lane lane = JsonRpcWorkerPool.Lane.DEFAULT;
+        String single = null;
+        boolean batch = false;
+
+        try (JsonParser parser = mapper.getFactory().createParser((InputStream) new ByteBufInputStream(content.duplicate()))) {
+            int depth = 0;
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    batch |= depth == 0 && token == JsonToken.START_ARRAY;
+                    depth++;
+                } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    depth--;
+                } else if (token == JsonToken.FIELD_NAME && depth <= 2 && JsonRpcBasicServer.METHOD.equals(parser.getCurrentName())) {
+                    JsonToken value = parser.nextToken();
+
+                    if (value != JsonToken.VALUE_STRING) {
+                        // not a valid method, the server rejects it, but the nesting has to stay balanced
+                        parser.skipChildren();
+                        continue;
+                    }
+
+                    String method = parser.getText();
+                    JsonRpcWorkerPool.Lane methodLane = JsonRpcWorkerPool.laneFor(method);
+
+                    if (!batch && depth == 1) {
+                        single = method;
+                    }
+
+                    // lanes are declared from the most to the least expensive
+                    if (methodLane.ordinal() < lane.ordinal()) {
+                        lane = methodLane;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // malformed requests are answered by the JSON-RPC server
+            LOGGER.trace("Unable to read the request method", e);
+        }
+
+        return new RequestMethods(lane, single);
     }
 
     @Override
@@ -81,6 +248,15 @@ public class JsonRpcWeb3ServerHandler extends SimpleChannelInboundHandler<ByteBu
         ctx.close();
     }
 
+    private Web3Result buildErrorResult(int errorCode, String errorMessage) {
+        try {
+            return new Web3Result(buildErrorContent(errorCode, errorMessage), errorCode);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Unable to build error response", e);
+            return new Web3Result(Unpooled.EMPTY_BUFFER, errorCode);
+        }
+    }
+
     private ByteBuf buildErrorContent(int errorCode, String errorMessage) throws JsonProcessingException {
         Map<String, JsonNode> errorProperties = new HashMap<>();
         errorProperties.put("code", jsonNodeFactory.numberNode(errorCode));
@@ -88,4 +264,15 @@ public class JsonRpcWeb3ServerHandler extends SimpleChannelInboundHandler<ByteBu
         JsonNode error = jsonNodeFactory.objectNode().set("error", jsonNodeFactory.objectNode().setAll(errorProperties));
         return Unpooled.wrappedBuffer(mapper.writeValueAsBytes(mapper.treeToValue(error, Object.class)));
     }
+
+    private static class RequestMethods {
+        private final JsonRpcWorkerPool.Lane lane;
+        // the method of a request that isn't a batch
+        private final String single;
+
+        RequestMethods(JsonRpcWorkerPool.Lane lane, String single) {
+            this.lane = lane;
+            this.single = single;
+        }
+    }
 }
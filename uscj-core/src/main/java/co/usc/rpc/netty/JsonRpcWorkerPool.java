@@ -0,0 +1,133 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.rpc.netty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs JSON-RPC requests out of the Netty event loops.
+ *
+ * Requests are split in lanes, each one with its own threads and bounded queue, so a burst of
+ * expensive calls (eth_call, eth_getLogs) can only use up its own lane and cheap reads keep
+ * being answered. When a lane queue is full the request is rejected instead of being queued.
+ */
+public class JsonRpcWorkerPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("jsonrpc");
+
+    public enum Lane {
+        // methods that execute transactions
+        CALL,
+        // methods that walk blocks looking for logs
+        LOGS,
+        // everything else
+        DEFAULT
+    }
+
+    private final Map<Lane, ThreadPoolExecutor> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicLong> rejected = new EnumMap<>(Lane.class);
+    private final AtomicLong timedOut = new AtomicLong();
+    private final long timeoutMillis;
+
+    public JsonRpcWorkerPool(int callThreads, int logsThreads, int defaultThreads, int queueSize, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+
+        executors.put(Lane.CALL, newExecutor(Lane.CALL, callThreads, queueSize));
+        executors.put(Lane.LOGS, newExecutor(Lane.LOGS, logsThreads, queueSize));
+        executors.put(Lane.DEFAULT, newExecutor(Lane.DEFAULT, defaultThreads, queueSize));
+
+        for (Lane lane : Lane.values()) {
+            rejected.put(lane, new AtomicLong());
+        }
+    }
+
+    public static Lane laneFor(String method) {
+        if (method == null) {
+            return Lane.DEFAULT;
+        }
+
+        switch (method) {
+            case "eth_call":
+            case "eth_estimateGas":
+            case "debug_traceTransaction":
+                return Lane.CALL;
+            case "eth_getLogs":
+            case "eth_getFilterLogs":
+            case "eth_getFilterChanges":
+                return Lane.LOGS;
+            default:
+                return Lane.DEFAULT;
+        }
+    }
+
+    /**
+     * Queues the task in the given lane.
+     *
+     * @return the task future, or null if the lane is full
+     */
+    public Future<?> submit(Lane lane, Runnable task) {
+        try {
+            return executors.get(lane).submit(task);
+        } catch (RejectedExecutionException e) {
+            long count = rejected.get(lane).incrementAndGet();
+            LOGGER.warn("JSON-RPC {} lane is full, request rejected ({} so far)", lane, count);
+            return null;
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void onTimeout(Lane lane) {
+        long count = timedOut.incrementAndGet();
+        LOGGER.warn("JSON-RPC request in {} lane timed out after {} ms ({} so far)", lane, timeoutMillis, count);
+    }
+
+    /**
+     * Drops the queued requests and interrupts the running ones, reporting how many were rejected or timed out.
+     */
+    public void stop() {
+        for (Lane lane : Lane.values()) {
+            int dropped = executors.get(lane).shutdownNow().size();
+            LOGGER.info("JSON-RPC {} lane stopped, {} requests rejected, {} dropped", lane, rejected.get(lane).get(), dropped);
+        }
+
+        LOGGER.info("JSON-RPC worker pool stopped, {} requests timed out", timedOut.get());
+    }
+
+    private static ThreadPoolExecutor newExecutor(Lane lane, int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "JsonRpc-" + lane.name().toLowerCase() + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), threadFactory);
+    }
+}
@@ -92,6 +92,8 @@ public class UscJsonRpcHandler
         switch (subscribeType) {
             case NEW_HEADS:
                 return emitter.subscribe(ctx.channel());
+            case LOGS:
+                return emitter.subscribeLogs(ctx.channel(), request.getParams().getFilter());
             default:
                 LOGGER.error("Subscription type {} is not implemented", subscribeType);
                 return new JsonRpcInternalError();
@@ -0,0 +1,237 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.usc.rpc.netty;
+
+import co.usc.util.MaxSizeHashMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.facade.Ethereum;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.ethereum.rpc.TypeConverter.stringHexToByteArray;
+
+/**
+ * Keeps the JSON results of the block, transaction and receipt queries already serialized.
+ *
+ * The results about irreversible blocks don't change, so they are keyed by the request alone and kept until
+ * they are the least recently used, or until a reorganization drops all of them. The rest depend on the best
+ * chain (a transaction may move to another block, the irreversible flag changes), so they are keyed by the
+ * hash of the best block they were built over, and a new best block just makes them unreachable.
+ */
+public class Web3ResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger("jsonrpc");
+
+    private static final int MAX_IRREVERSIBLE_ENTRIES = 1024;
+    private static final int MAX_REVERSIBLE_ENTRIES = 256;
+
+    private static final String BLOCK_BY_HASH = "eth_getBlockByHash";
+    private static final String BLOCK_BY_NUMBER = "eth_getBlockByNumber";
+    private static final String TRANSACTION_BY_HASH = "eth_getTransactionByHash";
+    private static final String TRANSACTION_RECEIPT = "eth_getTransactionReceipt";
+    private static final Set<String> CACHED_METHODS = new HashSet<>(Arrays.asList(
+            BLOCK_BY_HASH,
+            BLOCK_BY_NUMBER,
+            TRANSACTION_BY_HASH,
+            TRANSACTION_RECEIPT
+    ));
+
+    private final Blockchain blockchain;
+    private final ObjectMapper mapper;
+
+    private final Object lock = new Object();
+    private final Map<String, RawValue> irreversible = new MaxSizeHashMap<>(MAX_IRREVERSIBLE_ENTRIES, true);
+    private final Map<String, RawValue> reversible = new MaxSizeHashMap<>(MAX_REVERSIBLE_ENTRIES, true);
+
+    // changes with every reorganization, so results read from the dropped chain aren't kept
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param mapper the mapper the JSON-RPC server writes its responses with
+     */
+    public Web3ResponseCache(Ethereum eth, Blockchain blockchain, ObjectMapper mapper) {
+        this.blockchain = blockchain;
+        this.mapper = mapper;
+
+        eth.addListener(new EthereumListenerAdapter() {
+            private byte[] lastBestHash;
+
+            @Override
+            public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
+                // a best block that doesn't extend the previous one means the chain was reorganized
+                if (lastBestHash != null && !Arrays.equals(lastBestHash, block.getParentHash().getBytes())) {
+                    clearIrreversible();
+                }
+
+                lastBestHash = block.getHash().getBytes();
+            }
+        });
+    }
+
+    /**
+     * @return whether the results of the method may be cached, so its requests are worth reading
+     */
+    public boolean isCached(String method) {
+        return method != null && CACHED_METHODS.contains(method);
+    }
+
+    /**
+     * @return the key of the request result, or null if it can't be cached
+     */
+    public Key getKey(JsonNode request) {
+        if (!request.isObject() || !request.hasNonNull(JsonRpcBasicServer.ID)) {
+            return null;
+        }
+
+        JsonNode method = request.get(JsonRpcBasicServer.METHOD);
+
+        if (method == null || !method.isTextual() || !isCached(method.asText())) {
+            return null;
+        }
+
+        JsonNode params = request.get(JsonRpcBasicServer.PARAMS);
+        String paramsString = params == null ? "" : params.toString();
+
+        // the pending block changes with every transaction
+        if (paramsString.contains("\"pending\"")) {
+            return null;
+        }
+
+        return new Key(method.asText(), paramsString, Hex.toHexString(blockchain.getBestBlockHash()), generation.get());
+    }
+
+    /**
+     * @return the serialized response to the request, or null if its result isn't cached
+     */
+    public byte[] get(Key key, JsonNode request) throws IOException {
+        RawValue result;
+
+        synchronized (lock) {
+            result = irreversible.get(key.request);
+
+            if (result == null) {
+                result = reversible.get(key.bestChainRequest);
+            }
+        }
+
+        if (result == null) {
+            return null;
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        response.put(JsonRpcBasicServer.JSONRPC, JsonRpcBasicServer.VERSION);
+        response.set(JsonRpcBasicServer.ID, request.get(JsonRpcBasicServer.ID));
+        response.putRawValue(JsonRpcBasicServer.RESULT, result);
+
+        return mapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * Keeps the result of a successful response. Errors, null results and pending transactions are not cached.
+     */
+    public void put(Key key, InputStream response) {
+        JsonNode result;
+        RawValue value;
+
+        try {
+            result = mapper.readTree(response).get(JsonRpcBasicServer.RESULT);
+
+            if (result == null || result.isNull()) {
+                return;
+            }
+
+            value = new RawValue(mapper.writeValueAsString(result));
+        } catch (IOException e) {
+            logger.warn("Unable to read the response to cache {}", key.request, e);
+            return;
+        }
+
+        JsonNode blockHash = result.get(key.isBlock() ? "hash" : "blockHash");
+
+        if (blockHash == null || !blockHash.isTextual()) {
+            // a pending transaction
+            return;
+        }
+
+        boolean irreversibleData = isIrreversible(key, blockHash.asText());
+
+        synchronized (lock) {
+            if (irreversibleData && key.generation == generation.get()) {
+                irreversible.put(key.request, value);
+            } else {
+                reversible.put(key.bestChainRequest, value);
+            }
+        }
+    }
+
+    private boolean isIrreversible(Key key, String blockHash) {
+        // the block a tag stands for moves with the chain
+        if (key.params.contains("\"latest\"")) {
+            return false;
+        }
+
+        Block block = blockchain.getBlockByHash(stringHexToByteArray(blockHash));
+
+        return block != null && block.isIrreversible();
+    }
+
+    private void clearIrreversible() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            irreversible.clear();
+        }
+    }
+
+    public static class Key {
+        private final String method;
+        private final String params;
+        private final String request;
+        private final String bestChainRequest;
+        private final long generation;
+
+        private Key(String method, String params, String bestBlockHash, long generation) {
+            this.method = method;
+            this.params = params;
+            this.request = method + ":" + params;
+            this.bestChainRequest = bestBlockHash + ":" + this.request;
+            this.generation = generation;
+        }
+
+        private boolean isBlock() {
+            return BLOCK_BY_HASH.equals(method) || BLOCK_BY_NUMBER.equals(method);
+        }
+    }
+}
@@ -25,11 +25,7 @@ public class Web3ResultWebSocketResponseHandler extends SimpleChannelInboundHand
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Web3Result msg) {
-        ctx.write(new TextWebSocketFrame(msg.getContent()));
-    }
-
-    @Override
-    public void channelReadComplete(ChannelHandlerContext ctx) {
-        ctx.flush();
+        // results come from the JSON-RPC workers, out of the read cycle, so they are flushed right away
+        ctx.writeAndFlush(new TextWebSocketFrame(msg.getContent()));
     }
 }
@@ -18,6 +18,7 @@
 package co.usc.rpc.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
@@ -36,6 +37,7 @@ public class Web3WebSocketServer {
 
     private final InetAddress host;
     private final int port;
+    private final int writeBufferHighWaterMark;
     private final UscJsonRpcHandler jsonRpcHandler;
     private final JsonRpcWeb3ServerHandler web3ServerHandler;
     private final EventLoopGroup bossGroup;
@@ -45,10 +47,12 @@ public class Web3WebSocketServer {
     public Web3WebSocketServer(
             InetAddress host,
             int port,
+            int writeBufferHighWaterMark,
             UscJsonRpcHandler jsonRpcHandler,
             JsonRpcWeb3ServerHandler web3ServerHandler) {
         this.host = host;
         this.port = port;
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
         this.jsonRpcHandler = jsonRpcHandler;
         this.web3ServerHandler = web3ServerHandler;
         this.bossGroup = new NioEventLoopGroup();
@@ -62,6 +66,7 @@ public class Web3WebSocketServer {
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 protected void initChannel(SocketChannel ch) throws Exception {
+                    setWriteBufferWaterMarks(ch.config());
                     ChannelPipeline p = ch.pipeline();
                     p.addLast(new HttpServerCodec());
                     p.addLast(new HttpObjectAggregator(1024 * 1024 * 5));
@@ -75,6 +80,23 @@ public class Web3WebSocketServer {
         webSocketChannel.sync();
     }
 
+    /**
+     * The channel stops being writable with more than the high water mark bytes pending,
+     * the notifications to a client aren't sent while it's not writable
+     */
+    private void setWriteBufferWaterMarks(ChannelConfig config) {
+        int low = writeBufferHighWaterMark / 2;
+
+        // each mark is checked against the current value of the other one
+        if (writeBufferHighWaterMark < config.getWriteBufferLowWaterMark()) {
+            config.setWriteBufferLowWaterMark(low);
+            config.setWriteBufferHighWaterMark(writeBufferHighWaterMark);
+        } else {
+            config.setWriteBufferHighWaterMark(writeBufferHighWaterMark);
+            config.setWriteBufferLowWaterMark(low);
+        }
+    }
+
     public void stop() throws InterruptedException {
         if (webSocketChannel != null) {
             webSocketChannel.channel().close().sync();
@@ -0,0 +1,193 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.trie;
+
+import co.usc.crypto.Keccak256;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.util.RLP;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates the root of the trie that maps RLP.encodeInt(index) to each element of a list,
+ * as the transactions and receipts tries of a block, without building the trie.
+ *
+ * The keys are sorted and the nodes are serialized depth first, as TrieImpl.toMessage would do it,
+ * each one hashed as soon as its subnodes are. Only the pending hashes are kept, on the call stack.
+ *
+ * The values must not be empty, which holds for encoded transactions and receipts.
+ */
+public final class OrderedTrie {
+    private static final int ARITY = 2;
+
+    // lists this long are encoded in parallel
+    private static final int PARALLEL_ENCODING_THRESHOLD = 64;
+
+    private OrderedTrie() { }
+
+    /**
+     * @param elements  the elements, in order
+     * @param encoder   the encoding of an element, called from many threads for long lists
+     *
+     * @return the hash of the same trie TrieImpl would build putting the encoded elements one by one
+     */
+    public static <T> Keccak256 calculateRoot(List<T> elements, Function<T, byte[]> encoder) {
+        int size = elements.size();
+
+        if (size == 0) {
+            return new Keccak256(HashUtil.EMPTY_TRIE_HASH);
+        }
+
+        // the encoding and the hashing of the long values are done before the build, in parallel for long lists
+        IntStream indexes = IntStream.range(0, size);
+
+        if (size >= PARALLEL_ENCODING_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+
+        Entry[] entries = indexes
+                .mapToObj(k -> new Entry(TrieImpl.bytesToKey(RLP.encodeInt(k)), encoder.apply(elements.get(k))))
+                .toArray(Entry[]::new);
+
+        // the keys are not ordered as their indexes, 0 is encoded as 0x80
+        Arrays.sort(entries, OrderedTrie::compareKeys);
+
+        return new Keccak256(hashNode(entries, 0, size, 0));
+    }
+
+    /**
+     * @param values    the values, in order
+     *
+     * @return the hash of the same trie TrieImpl would build putting the values one by one
+     */
+    public static Keccak256 calculateRoot(List<byte[]> values) {
+        return calculateRoot(values, Function.identity());
+    }
+
+    /**
+     * Hashes the node holding the entries from..to, which share their first depth key bits
+     */
+    private static byte[] hashNode(Entry[] entries, int from, int to, int depth) {
+        Entry first = entries[from];
+
+        if (to - from == 1) {
+            return hash(Arrays.copyOfRange(first.key, depth, first.key.length), null, null, first.value, first.longValue);
+        }
+
+        Entry last = entries[to - 1];
+        int split = depth;
+
+        while (split < first.key.length && split < last.key.length && first.key[split] == last.key[split]) {
+            split++;
+        }
+
+        // a key ending at the split is a prefix of the rest, it keeps its value in this node
+        byte[] value = null;
+        boolean longValue = false;
+        int start = from;
+
+        if (first.key.length == split) {
+            value = first.value;
+            longValue = first.longValue;
+            start++;
+        }
+
+        int middle = start;
+
+        while (middle < to && entries[middle].key[split] == 0) {
+            middle++;
+        }
+
+        byte[] left = middle > start ? hashNode(entries, start, middle, split + 1) : null;
+        byte[] right = middle < to ? hashNode(entries, middle, to, split + 1) : null;
+
+        return hash(Arrays.copyOfRange(first.key, depth, split), left, right, value, longValue);
+    }
+
+    /**
+     * Hashes the same message TrieImpl.toMessage builds for a node without secure keys
+     *
+     * @param value     the value, or its hash if it's a long value
+     */
+    private static byte[] hash(byte[] sharedPath, byte[] left, byte[] right, byte[] value, boolean longValue) {
+        int lshared = sharedPath.length;
+        byte[] encodedSharedPath = lshared > 0 ? PathEncoder.encode(sharedPath) : null;
+        int lvalue = value == null ? 0 : value.length;
+        int nhashes = (left == null ? 0 : 1) + (right == null ? 0 : 1);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + Short.BYTES * 2
+                + (encodedSharedPath == null ? 0 : encodedSharedPath.length)
+                + nhashes * Keccak256Helper.DEFAULT_SIZE_BYTES
+                + lvalue);
+
+        buffer.put((byte) ARITY);
+        buffer.put((byte) (longValue ? 2 : 0));
+        buffer.putShort((short) ((left == null ? 0 : 1) | (right == null ? 0 : 2)));
+        buffer.putShort((short) lshared);
+
+        if (encodedSharedPath != null) {
+            buffer.put(encodedSharedPath);
+        }
+
+        if (left != null) {
+            buffer.put(left);
+        }
+
+        if (right != null) {
+            buffer.put(right);
+        }
+
+        if (value != null) {
+            buffer.put(value);
+        }
+
+        return Keccak256Helper.keccak256(buffer.array());
+    }
+
+    private static int compareKeys(Entry a, Entry b) {
+        int length = Math.min(a.key.length, b.key.length);
+
+        for (int k = 0; k < length; k++) {
+            if (a.key[k] != b.key[k]) {
+                return a.key[k] - b.key[k];
+            }
+        }
+
+        return a.key.length - b.key.length;
+    }
+
+    private static class Entry {
+        private final byte[] key;
+        // long values are kept as their hash, as the nodes reference them
+        private final byte[] value;
+        private final boolean longValue;
+
+        Entry(byte[] key, byte[] value) {
+            this.key = key;
+            this.longValue = value.length > 32;
+            this.value = this.longValue ? Keccak256Helper.keccak256(value) : value;
+        }
+    }
+}
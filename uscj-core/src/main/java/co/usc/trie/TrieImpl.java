@@ -326,6 +326,65 @@ public class TrieImpl implements Trie {
         return this.get(key.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * get for tries that are read from many threads at once. Stored subnodes are taken from the
+     * shared cache instead of being loaded into their parent, so a read never modifies a node
+     *
+     * @param key   the key associated with the value
+     * @param cache the shared node cache, backed by this trie store
+     *
+     * @return  the associated value, or null if there is no associated value to the key
+     */
+    public byte[] get(byte[] key, TrieNodeCache cache) {
+        byte[] keyBytes = this.isSecure ? bytesToKey(Keccak256Helper.keccak256(key)) : bytesToKey(key);
+        int length = keyBytes.length;
+        int position = 0;
+        TrieImpl node = this;
+
+        while (position < length) {
+            if (node.encodedSharedPath != null) {
+                byte[] sharedPath = PathEncoder.decode(node.encodedSharedPath, node.sharedPathLength);
+
+                for (int k = 0; k < sharedPath.length; k++, position++) {
+                    if (position >= length || keyBytes[position] != sharedPath[k]) {
+                        return null;
+                    }
+                }
+
+                if (position >= length) {
+                    break;
+                }
+            }
+
+            int n = keyBytes[position];
+            Keccak256 localHash = node.hashes == null ? null : node.hashes[n];
+            TrieImpl child;
+
+            if (localHash != null) {
+                child = cache.get(localHash, node.store);
+
+                if (child == null) {
+                    String strHash = localHash.toHexString();
+                    logger.error(ERROR_NON_EXISTENT_TRIE_LOGGER, strHash);
+                    panicProcessor.panic(PANIC_TOPIC, ERROR_NON_EXISTENT_TRIE + " " + strHash);
+                    throw new TrieSerializationException(ERROR_NON_EXISTENT_TRIE + " " + strHash, null);
+                }
+            } else {
+                // a subnode that was never saved, only possible in a trie that is not shared
+                child = node.getNode(n);
+            }
+
+            if (child == null) {
+                return null;
+            }
+
+            node = child;
+            position++;
+        }
+
+        return node.value;
+    }
+
     /**
      * put key value association, returning a new NewTrie
      *
@@ -464,6 +523,7 @@ public class TrieImpl implements Trie {
     /**
      * save saves the unsaved current trie and subnodes to their associated store
      *
+     * All the unsaved nodes sharing this trie's store are written together, children first
      */
     @Override
     public void save() {
@@ -471,16 +531,36 @@ public class TrieImpl implements Trie {
             return;
         }
 
+        List<Trie> unsaved = new ArrayList<>();
+        this.collectUnsaved(unsaved);
+
+        this.store.saveAll(unsaved);
+
+        for (Trie node : unsaved) {
+            ((TrieImpl) node).saved = true;
+        }
+    }
+
+    private void collectUnsaved(List<Trie> unsaved) {
+        if (this.saved) {
+            return;
+        }
+
         if (this.nodes != null) {
             for (TrieImpl node : this.nodes) {
-                if (node != null) {
+                if (node == null) {
+                    continue;
+                }
+
+                if (node.store == this.store) {
+                    node.collectUnsaved(unsaved);
+                } else {
                     node.save();
                 }
             }
         }
 
-        this.store.save(this);
-        this.saved = true;
+        unsaved.add(this);
     }
 
     @Override
@@ -0,0 +1,86 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package co.usc.trie;
+
+import co.usc.crypto.Keccak256;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decoded trie nodes shared by the read only views of the state.
+ *
+ * A stored node never changes, so once it is here it can be walked by any number of threads
+ * at once, as long as they don't load subnodes into it (see {@link TrieImpl#get(byte[], TrieNodeCache)}).
+ * When it reaches its size the cache is dropped as a whole, which is a lot cheaper than keeping
+ * an access order across threads; the top of the tries is back after a few reads.
+ */
+public class TrieNodeCache {
+    private final Map<Keccak256, TrieImpl> nodes = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TrieNodeCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the node with the given hash, retrieved from the store if it is not cached,
+     * or null if the store doesn't have it
+     */
+    public TrieImpl get(Keccak256 hash, TrieStore store) {
+        TrieImpl node = nodes.get(hash);
+
+        if (node != null) {
+            hits.incrementAndGet();
+            return node;
+        }
+
+        misses.incrementAndGet();
+        node = (TrieImpl) store.retrieve(hash.getBytes());
+
+        if (node == null) {
+            return null;
+        }
+
+        if (nodes.size() >= maxSize) {
+            nodes.clear();
+        }
+
+        nodes.put(hash, node);
+
+        return node;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -20,12 +20,20 @@ package co.usc.trie;
 
 import org.ethereum.datasource.KeyValueDataSource;
 
+import java.util.List;
+
 /**
  * Created by ajlopez on 29/03/2017.
  */
 public interface TrieStore {
     void save(Trie trie);
 
+    default void saveAll(List<Trie> tries) {
+        for (Trie trie : tries) {
+            save(trie);
+        }
+    }
+
     int getSaveCount();
 
     Trie retrieve(byte[] hash);
@@ -30,7 +30,9 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * TrieStoreImpl store and retrieve Trie node by hash
@@ -73,6 +75,32 @@ public class TrieStoreImpl implements TrieStore {
         }
     }
 
+    /**
+     * saveAll saves a list of Tries to the store in a single batch
+     * (a single LevelDB WriteBatch when the store is on disk)
+     * @param tries
+     */
+    @Override
+    public void saveAll(List<Trie> tries) {
+        if (tries.isEmpty()) {
+            return;
+        }
+
+        Map<byte[], byte[]> rows = new LinkedHashMap<>();
+
+        for (Trie trie : tries) {
+            this.saveCount++;
+            rows.put(trie.getHash().getBytes(), trie.toMessage());
+
+            if (trie.hasLongValue()) {
+                this.saveCount++;
+                rows.put(trie.getValueHash(), trie.getValue());
+            }
+        }
+
+        this.store.updateBatch(rows);
+    }
+
     @Override
     public int getSaveCount() { return this.saveCount; }
 
@@ -1,9 +1,12 @@
 package co.usc.validators;
 
 import co.usc.ulordj.core.Sha256Hash;
+import org.ethereum.config.Constants;
 import org.ethereum.core.Block;
 import org.ethereum.crypto.ECKey;
+import org.ethereum.util.BIUtil;
 
+import java.math.BigInteger;
 import java.security.SignatureException;
 
 public class BlockSignatureValidationRule implements BlockValidationRule{
@@ -15,12 +18,22 @@ public class BlockSignatureValidationRule implements BlockValidationRule{
     }
 
     private boolean validateSignature(ECKey.ECDSASignature signature, byte[] message) {
+        // A key recovered from (r, s) always verifies that same signature, so once the components are known to be
+        // in range a successful recovery is enough and the second verification pass can be skipped
+        if (!isInRange(signature.r) || !isInRange(signature.s)) {
+            return false;
+        }
+
         try {
             ECKey ecKey = ECKey.signatureToKey(message, signature.toBase64());
-            return ECKey.verify(message, signature, ecKey.getPubKey());
+            return !ecKey.getPubKeyPoint().isInfinity();
         } catch (SignatureException e) {
             e.printStackTrace();
             return false;
         }
     }
+
+    private static boolean isInRange(BigInteger value) {
+        return value.signum() > 0 && BIUtil.isLessThan(value, Constants.getSECP256K1N());
+    }
 }
@@ -282,6 +282,14 @@ public abstract class SystemProperties {
         return configFromFiles.hasPath("peer.p2p.framing.maxSize") ? configFromFiles.getInt("peer.p2p.framing.maxSize") : MessageCodec.NO_FRAMING;
     }
 
+    public boolean isPeerCompressionEnabled() {
+        return getBoolean("peer.p2p.compression.enabled", true);
+    }
+
+    public int peerCompressionThreshold() {
+        return getInt("peer.p2p.compression.threshold", 512);
+    }
+
     @ValidateMe
     public List<String> peerDiscoveryIPList() {
         return configFromFiles.hasPath("peer.discovery.ip.list") ? configFromFiles.getStringList("peer.discovery.ip.list") : new ArrayList<>();
@@ -735,6 +743,14 @@ public abstract class SystemProperties {
         return configFromFiles.getInt(PROPERTY_RPC_WEBSOCKET_PORT);
     }
 
+    public int rpcWebSocketNotificationsHighWatermark() {
+        return getInt("rpc.providers.web.ws.notifications.highWatermark", 1024 * 1024);
+    }
+
+    public int rpcWebSocketNotificationsDisconnectTimeout() {
+        return getInt("rpc.providers.web.ws.notifications.disconnectTimeout", 60);
+    }
+
     public InetAddress rpcHttpBindAddress() {
         return getWebBindAddress(PROPERTY_RPC_HTTP_ADDRESS);
     }
@@ -25,11 +25,12 @@ import co.usc.core.UscAddress;
 import co.usc.crypto.Keccak256;
 import co.usc.panic.PanicProcessor;
 import co.usc.remasc.RemascTransaction;
+import co.usc.trie.OrderedTrie;
 import co.usc.trie.Trie;
 import co.usc.trie.TrieImpl;
 import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
 import org.ethereum.crypto.ECKey.ECDSASignature;
-import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.crypto.HashUtil;
 import org.ethereum.rpc.TypeConverter;
 import org.ethereum.util.RLP;
 import org.ethereum.util.RLPElement;
@@ -43,8 +44,6 @@ import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
 
 import javax.annotation.Nonnull;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -146,7 +145,7 @@ public class Block {
 
         this.header.setPaidFees(paidFees);
 
-        byte[] calculatedRoot = getTxTrie(transactionsList).getHash().getBytes();
+        byte[] calculatedRoot = calculateTxTrieRoot(transactionsList);
         this.header.setTransactionsRoot(calculatedRoot);
         this.checkExpectedRoot(transactionsRoot, calculatedRoot);
 
@@ -209,7 +208,7 @@ public class Block {
         // Parse Transactions
         RLPList txTransactions = (RLPList) block.get(1);
         this.transactionsList = parseTxs(txTransactions);
-        byte[] calculatedRoot = getTxTrie(this.transactionsList).getHash().getBytes();
+        byte[] calculatedRoot = calculateTxTrieRoot(this.transactionsList);
         this.checkExpectedRoot(this.header.getTxTrieRoot(), calculatedRoot);
 
         RLPList sig = (RLPList)block.get(2);
@@ -659,19 +658,19 @@ public class Block {
         return txsState;
     }
 
-    public static byte[] getSignaturesHash(List<byte[]> signaturesList) {
-        ByteArrayOutputStream bs = new ByteArrayOutputStream();
-        byte[] message;
-        for (byte[] b : signaturesList) {
-            try {
-                bs.write(b);
-            } catch (IOException e) {
-                logger.error("Failed to Hash signatures");
-            }
+    /**
+     * Same as getTxTrie(transactions).getHash(), without building the trie
+     */
+    public static byte[] calculateTxTrieRoot(List<Transaction> transactions) {
+        if (transactions == null) {
+            return HashUtil.EMPTY_TRIE_HASH;
         }
-        message = bs.toByteArray();
 
-        return new Keccak256(Keccak256Helper.keccak256(message)).getBytes();
+        return OrderedTrie.calculateRoot(transactions, Transaction::getEncoded).getBytes();
+    }
+
+    public static byte[] getSignaturesHash(List<byte[]> signaturesList) {
+        return HashUtil.keccak256Concat(signaturesList);
     }
 
     public BigInteger getGasLimitAsInteger() {
@@ -27,12 +27,12 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
- * The class intended to serve as an 'Event Bus' where all EthereumJ events are
- * dispatched asynchronously from component to component or from components to
- * the user event handlers.
+ * Runs tasks asynchronously and in order on a single thread, to decouple components
+ * that are intended to work asynchronously and to avoid complex synchronisation and
+ * deadlocks between them.
  *
- * This made for decoupling different components which are intended to work
- * asynchronously and to avoid complex synchronisation and deadlocks between them
+ * Listener events don't go through here, CompositeEthereumListener delivers them
+ * on a lane per listener.
  *
  * Created by Anton Nashatyrev on 29.12.2015.
  */
@@ -6,6 +6,8 @@ package org.ethereum.core;
 public class ImmutableTransaction extends Transaction {
     public ImmutableTransaction(byte[] rawData) {
         super(rawData);
+        // encoded and hashed once on arrival, the pool, the blocks and the receipts reuse them
+        getHash();
     }
 
     @Override
@@ -23,4 +25,4 @@ public class ImmutableTransaction extends Transaction {
             super("Immutable transaction: " + message);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -144,6 +144,16 @@ public interface Repository extends AccountInformationProvider {
      */
     Repository startTracking();
 
+    /**
+     * Start tracking the changes of a nested call frame. The returned repository must be committed or
+     * rolled back before this one is written again, which lets implementations avoid copying state.
+     *
+     * @return the tracker repository
+     */
+    default Repository startNestedTracking() {
+        return startTracking();
+    }
+
     void flush();
     void flushNoReconnect();
 
@@ -197,6 +207,16 @@ public interface Repository extends AccountInformationProvider {
 
     Repository getSnapshotTo(byte[] root);
 
+    /**
+     * Snapshot to be read from several threads at once, and never written back
+     *
+     * @param root - state root of the snapshot
+     * @return a repository at that root that can be tracked but not written
+     */
+    default Repository getReadOnlySnapshotTo(byte[] root) {
+        return getSnapshotTo(root);
+    }
+
     DetailsDataStore getDetailsDataStore();
 
     void updateContractDetails(UscAddress addr, final ContractDetails contractDetails);
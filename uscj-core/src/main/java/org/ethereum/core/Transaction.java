@@ -70,8 +70,9 @@ public class Transaction {
     /* whether this is a local call transaction */
     private boolean isLocalCall;
 
-    /* SHA3 hash of the RLP encoded transaction */
-    private byte[] hash;
+    /* SHA3 hash of the RLP encoded transaction, and of the encoding without signature */
+    private Keccak256 hash;
+    private Keccak256 rawHash;
 
     /* a counter used to make sure each transaction can only be processed once */
     private byte[] nonce;
@@ -108,6 +109,9 @@ public class Transaction {
 
     protected UscAddress sender;
 
+    /* gas cost of the transaction data, -1 until it's calculated */
+    private long dataCost = -1;
+
     /* Tx in encoded form */
     protected byte[] rlpEncoded;
     private byte[] rlpRaw;
@@ -187,10 +191,15 @@ public class Transaction {
             return 0;
         }
 
-        long nonZeroes = this.nonZeroDataBytes();
-        long zeroVals  = ArrayUtils.getLength(this.getData()) - nonZeroes;
+        // data and receive address can't change, the cost is calculated once
+        if (dataCost < 0) {
+            long nonZeroes = this.nonZeroDataBytes();
+            long zeroVals  = ArrayUtils.getLength(this.getData()) - nonZeroes;
+
+            dataCost = (this.isContractCreation() ? GasCost.TRANSACTION_CREATE_CONTRACT : GasCost.TRANSACTION) + zeroVals * GasCost.TX_ZERO_DATA + nonZeroes * GasCost.TX_NO_ZERO_DATA;
+        }
 
-        return (this.isContractCreation() ? GasCost.TRANSACTION_CREATE_CONTRACT : GasCost.TRANSACTION) + zeroVals * GasCost.TX_ZERO_DATA + nonZeroes * GasCost.TX_NO_ZERO_DATA;
+        return dataCost;
     }
 
     public void verify() {
@@ -254,7 +263,6 @@ public class Transaction {
             logger.trace("RLP encoded tx is not signed!");
         }
         this.parsed = true;
-        this.hash = getHash().getBytes();
     }
 
     public boolean isParsed() {
@@ -262,21 +270,30 @@ public class Transaction {
     }
 
     public Keccak256 getHash() {
-        if (!parsed) {
-            rlpParse();
+        if (hash == null) {
+            if (!parsed) {
+                rlpParse();
+            }
+
+            byte[] plainMsg = this.getEncoded();
+            hash = new Keccak256(HashUtil.keccak256(plainMsg));
         }
 
-        byte[] plainMsg = this.getEncoded();
-        return new Keccak256(HashUtil.keccak256(plainMsg));
+        // the cached one must not be reachable through getBytes()
+        return hash.copy();
     }
 
     public Keccak256 getRawHash() {
-        if (!parsed) {
-            rlpParse();
+        if (rawHash == null) {
+            if (!parsed) {
+                rlpParse();
+            }
+
+            byte[] plainMsg = this.getEncodedRaw();
+            rawHash = new Keccak256(HashUtil.keccak256(plainMsg));
         }
 
-        byte[] plainMsg = this.getEncodedRaw();
-        return new Keccak256(HashUtil.keccak256(plainMsg));
+        return rawHash.copy();
     }
 
     public byte[] getNonce() {
@@ -331,6 +348,9 @@ public class Transaction {
         this.signature = null;
         this.rlpEncoded = null;
         this.rlpRaw = null;
+        this.hash = null;
+        this.rawHash = null;
+        this.sender = null;
     }
 
     public long nonZeroDataBytes() {
@@ -395,6 +415,8 @@ public class Transaction {
     public void setSignature(ECDSASignature signature) {
         this.signature = signature;
         this.rlpEncoded = null;
+        this.hash = null;
+        this.sender = null;
     }
 
     @Nullable
@@ -454,7 +476,7 @@ public class Transaction {
             rlpParse();
         }
 
-        return "TransactionData [" + "hash=" + ByteUtil.toHexString(hash) +
+        return "TransactionData [" + "hash=" + getHash().toHexString() +
                 "  nonce=" + ByteUtil.toHexString(nonce) +
                 ", gasPrice=" + gasPrice.toString() +
                 ", gas=" + ByteUtil.toHexString(gasLimit) +
@@ -554,10 +576,6 @@ public class Transaction {
         this.rlpEncoded = RLP.encodeList(toEncodeNonce, toEncodeGasPrice, toEncodeGasLimit,
                 toEncodeReceiveAddress, toEncodeValue, toEncodeData, v, r, s);
 
-        Keccak256 hash = this.getHash();
-
-        this.hash = hash == null ? null : hash.getBytes();
-
         return rlpEncoded;
     }
 
@@ -23,6 +23,8 @@ import co.usc.config.UscSystemProperties;
 import co.usc.core.UscAddress;
 import co.usc.core.bc.BlockChainImpl;
 import co.usc.core.bc.BlockExecutor;
+import co.usc.core.bc.BlockResultCache;
+import co.usc.db.RepositoryImpl;
 import co.usc.validators.BlockValidator;
 import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.*;
@@ -58,6 +60,7 @@ public class BlockChainLoader {
     private final TransactionPool transactionPool;
     private final EthereumListener listener;
     private final BlockValidator blockValidator;
+    private final BlockResultCache resultCache;
 
     @Autowired
     public BlockChainLoader(
@@ -67,7 +70,8 @@ public class BlockChainLoader {
             ReceiptStore receiptStore,
             TransactionPool transactionPool,
             EthereumListener listener,
-            BlockValidator blockValidator) {
+            BlockValidator blockValidator,
+            BlockResultCache resultCache) {
 
         this.config = config;
         this.blockStore = blockStore;
@@ -76,6 +80,7 @@ public class BlockChainLoader {
         this.transactionPool = transactionPool;
         this.listener = listener;
         this.blockValidator = blockValidator;
+        this.resultCache = resultCache;
     }
 
     public BlockChainImpl loadBlockchain() {
@@ -109,7 +114,8 @@ public class BlockChainLoader {
                             config.databaseDir(),
                             config.vmTraceDir(),
                             config.vmTraceCompressed()
-                        )
+                        ),
+                        resultCache
                 )
         );
 
@@ -152,6 +158,8 @@ public class BlockChainLoader {
             logger.info("*** Loaded up to block [{}] with stateRoot [{}]",
                     blockchain.getBestBlock().getNumber(),
                     Hex.toHexString(blockchain.getBestBlock().getStateRoot()));
+
+            checkFlushedState(bestBlock);
         }
 
         String rootHash = config.rootHashStart();
@@ -173,4 +181,33 @@ public class BlockChainLoader {
         }
         return blockchain;
     }
+
+    private void checkFlushedState(Block bestBlock) {
+        if (!(repository instanceof RepositoryImpl)) {
+            return;
+        }
+
+        byte[] flushedRoot = ((RepositoryImpl) repository).getFlushedRoot();
+
+        if (flushedRoot == null) {
+            logger.info("No complete state flush recorded yet");
+            return;
+        }
+
+        if (Arrays.equals(flushedRoot, bestBlock.getStateRoot())) {
+            return;
+        }
+
+        // the blockchain flushes on shutdown, so this only happens after a crash
+        String message = String.format("Node was not shut down cleanly, last complete state flush was at stateRoot [%s], best block [%d] has stateRoot [%s]",
+                Hex.toHexString(flushedRoot), bestBlock.getNumber(), Hex.toHexString(bestBlock.getStateRoot()));
+
+        // the blocks after the last flush can only be used if the nodes saved while executing them are there
+        if (!((RepositoryImpl) repository).isStateSaved(bestBlock.getStateRoot())) {
+            logger.error("{}, and that state is not on disk", message);
+            throw new IllegalStateException(message + ", and that state is not on disk");
+        }
+
+        logger.error(message);
+    }
 }
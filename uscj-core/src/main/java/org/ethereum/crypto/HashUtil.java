@@ -28,21 +28,29 @@ import org.bouncycastle.util.encoders.Hex;
 
 import javax.annotation.Nonnull;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 
 import static java.util.Arrays.copyOfRange;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
 
 public class HashUtil {
-    public static final byte[] EMPTY_TRIE_HASH = keccak256(RLP.encodeElement(EMPTY_BYTE_ARRAY));
+    private static final int KECCAK_256_SIZE = 32;
+
+    // Digest engines are stateful, so every thread gets its own reusable instance.
+    // They must be declared before any hash constant is computed below.
+    private static final ThreadLocal<Keccak256> keccak256digest = ThreadLocal.withInitial(Keccak256::new);
+    private static final ThreadLocal<MessageDigest> sha256digest = ThreadLocal.withInitial(HashUtil::newSha256Digest);
 
-    private static final MessageDigest sha256digest;
+    public static final byte[] EMPTY_TRIE_HASH = keccak256(RLP.encodeElement(EMPTY_BYTE_ARRAY));
 
-    static {
+    private static MessageDigest newSha256Digest() {
         try {
-            sha256digest = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);  // Can't happen.
         }
@@ -53,13 +61,11 @@ public class HashUtil {
      * @return - sha256 hash of the data
      */
     public static byte[] sha256(byte[] input) {
-        return sha256digest.digest(input);
+        return sha256digest.get().digest(input);
     }
 
     public static byte[] keccak256(byte[] input) {
-        Keccak256 digest =  new Keccak256();
-        digest.update(input);
-        return digest.digest();
+        return keccak256(input, 0, input.length);
     }
 
     /**
@@ -70,7 +76,75 @@ public class HashUtil {
      * @return - sha3 hash of the chunk
      */
     public static byte[] keccak256(byte[] input, int start, int length) {
-        return Keccak256Helper.keccak256(input, start, length);
+        byte[] hash = new byte[KECCAK_256_SIZE];
+        keccak256digest.get().digest(input, start, length, hash, 0);
+        return hash;
+    }
+
+    /**
+     * Allocation-free hashing of a chunk of data into a caller supplied buffer
+     * @param input - data for hash
+     * @param start - start of hashing chunk
+     * @param length - length of hashing chunk
+     * @param out - buffer receiving the 32 bytes hash
+     * @param outOffset - offset of the hash in out
+     */
+    public static void keccak256(byte[] input, int start, int length, byte[] out, int outOffset) {
+        keccak256digest.get().digest(input, start, length, out, outOffset);
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer, moving its position to its limit
+     * @param input - data for hash
+     * @return - sha3 hash of the remaining bytes
+     */
+    public static byte[] keccak256(ByteBuffer input) {
+        if (input.hasArray()) {
+            int length = input.remaining();
+            byte[] hash = keccak256(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.position() + length);
+            return hash;
+        }
+
+        Keccak256 digest = keccak256digest.get();
+        digest.reset();
+        digest.update(input);
+        return digest.digest();
+    }
+
+    /**
+     * Hashes each input separately, reusing one engine for the whole batch.
+     * Meant for many small inputs such as trie nodes or transaction lists.
+     * @param inputs - data items to hash
+     * @return - the sha3 hash of each item, in the same order
+     */
+    public static List<byte[]> keccak256Batch(List<byte[]> inputs) {
+        Keccak256 digest = keccak256digest.get();
+        List<byte[]> hashes = new ArrayList<>(inputs.size());
+
+        for (byte[] input : inputs) {
+            byte[] hash = new byte[KECCAK_256_SIZE];
+            digest.digest(input, 0, input.length, hash, 0);
+            hashes.add(hash);
+        }
+
+        return hashes;
+    }
+
+    /**
+     * Hashes the concatenation of the inputs without building the concatenated array
+     * @param inputs - data items to hash, in order
+     * @return - sha3 hash of the concatenated items
+     */
+    public static byte[] keccak256Concat(List<byte[]> inputs) {
+        Keccak256 digest = keccak256digest.get();
+        digest.reset();
+
+        for (byte[] input : inputs) {
+            digest.update(input);
+        }
+
+        return digest.digest();
     }
 
 
@@ -136,12 +210,11 @@ public class HashUtil {
      * @return -
      */
     public static byte[] doubleDigest(byte[] input, int offset, int length) {
-        synchronized (sha256digest) {
-            sha256digest.reset();
-            sha256digest.update(input, offset, length);
-            byte[] first = sha256digest.digest();
-            return sha256digest.digest(first);
-        }
+        MessageDigest digest = sha256digest.get();
+        digest.reset();
+        digest.update(input, offset, length);
+        byte[] first = digest.digest();
+        return digest.digest(first);
     }
 
     /**
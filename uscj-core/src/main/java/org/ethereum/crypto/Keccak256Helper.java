@@ -19,11 +19,11 @@
 
 package org.ethereum.crypto;
 
-import org.bouncycastle.crypto.digests.KeccakDigest;
 import org.bouncycastle.crypto.digests.KeccakDigest;
 import org.bouncycastle.util.encoders.Hex;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 public class Keccak256Helper {
 
@@ -43,7 +43,7 @@ public class Keccak256Helper {
     }
 
     public static byte[] keccak256(byte[] message) {
-        return keccak256(message, new KeccakDigest(DEFAULT_SIZE), true);
+        return HashUtil.keccak256(message);
     }
 
     public static byte[] keccak256(byte[] message, Size sz) {
@@ -51,11 +51,11 @@ public class Keccak256Helper {
     }
 
     public static byte[] keccak256(byte[] m1, byte[] m2) {
-        return keccak256(m1, m2, new KeccakDigest(DEFAULT_SIZE), true);
+        return HashUtil.keccak256Concat(Arrays.asList(m1, m2));
     }
 
     public static byte[] keccak256(byte[] message, int start, int length) {
-        return keccak256(message, start, length, new KeccakDigest(DEFAULT_SIZE), true);
+        return HashUtil.keccak256(message, start, length);
     }
 
     protected static String keccak256String(String message, Size bitSize) {
@@ -99,21 +99,6 @@ public class Keccak256Helper {
         return doKeccak256(message, digest, bouncyencoder);
     }
 
-    private static byte[] keccak256(byte[] m1, byte[] m2, KeccakDigest digest, boolean bouncyencoder) {
-        return doKeccak256(m1, m2, digest, bouncyencoder);
-    }
-
-    private static byte[] keccak256(byte[] message, int start, int length, KeccakDigest digest, boolean bouncyencoder) {
-        byte[] hash = new byte[digest.getDigestSize()];
-
-        if (message.length != 0) {
-            digest.update(message, start, length);
-        }
-        digest.doFinal(hash, 0);
-        return hash;
-    }
-
-
     private static byte[] doKeccak256(byte[] message, KeccakDigest digest, boolean bouncyencoder) {
         byte[] hash = new byte[digest.getDigestSize()];
 
@@ -124,15 +109,6 @@ public class Keccak256Helper {
         return hash;
     }
 
-    private static byte[] doKeccak256(byte[] m1, byte[] m2, KeccakDigest digest, boolean bouncyencoder) {
-        byte[] hash = new byte[digest.getDigestSize()];
-        digest.update(m1, 0, m1.length);
-        digest.update(m2, 0, m2.length);
-
-        digest.doFinal(hash, 0);
-        return hash;
-    }
-
     public enum Size {
 
         S224(224),
@@ -0,0 +1,213 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.crypto;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.asn1.x9.X9IntegerConverter;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+
+/**
+ * Public-input secp256k1 arithmetic used by {@link ECKey} for signature verification and public key recovery.
+ *
+ * The curve is the Bouncy Castle custom secp256k1 implementation, which works on fixed-size field elements in
+ * Jacobian coordinates and splits variable-base scalars with the GLV endomorphism. On top of it this class keeps a
+ * precomputed comb table of the generator (normalized to affine with a single batch inversion), so u1*G costs
+ * at most 32 mixed additions and no doublings, and checks verification results without leaving Jacobian
+ * coordinates.
+ *
+ * Nothing here runs in constant time, so it must only be fed public values (hashes, signatures, public keys).
+ * Private key operations keep using the regular Bouncy Castle multipliers.
+ */
+final class Secp256k1 {
+
+    static final ECDomainParameters CURVE;
+
+    private static final ECCurve EC_CURVE;
+    private static final BigInteger N;
+    private static final BigInteger P;
+
+    private static final int COMB_WINDOW_BITS = 8;
+    private static final int COMB_WINDOWS = 256 / COMB_WINDOW_BITS;
+    private static final int COMB_POINTS = (1 << COMB_WINDOW_BITS) - 1;
+
+    // GENERATOR_TABLE[i][j] = (j + 1) * 2^(8 * i) * G, in affine form
+    private static final ECPoint[][] GENERATOR_TABLE;
+
+    static {
+        X9ECParameters params = CustomNamedCurves.getByName("secp256k1");
+        CURVE = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
+        EC_CURVE = CURVE.getCurve();
+        N = CURVE.getN();
+        P = EC_CURVE.getField().getCharacteristic();
+        GENERATOR_TABLE = buildGeneratorTable();
+    }
+
+    private Secp256k1() {
+    }
+
+    /**
+     * Computes k * G using the precomputed generator table. Not constant time.
+     */
+    static ECPoint multiplyGenerator(BigInteger k) {
+        byte[] bytes = BigIntegers.asUnsignedByteArray(32, k.mod(N));
+        ECPoint result = EC_CURVE.getInfinity();
+
+        for (int i = 0; i < COMB_WINDOWS; i++) {
+            int window = bytes[bytes.length - 1 - i] & 0xFF;
+
+            if (window != 0) {
+                result = result.add(GENERATOR_TABLE[i][window - 1]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes u1 * G + u2 * Q. The result is not normalized.
+     */
+    static ECPoint sumOfMultiplies(BigInteger u1, BigInteger u2, ECPoint q) {
+        // the variable-base half goes through the curve's GLV multiplier
+        return multiplyGenerator(u1).add(q.multiply(u2));
+    }
+
+    /**
+     * Standard ECDSA verification of (r, s) over the given hash, with the same acceptance rules as
+     * Bouncy Castle's ECDSASigner.
+     */
+    static boolean verify(byte[] hash, BigInteger r, BigInteger s, ECPoint q) {
+        if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+            return false;
+        }
+
+        BigInteger e = calculateE(hash);
+        BigInteger c = s.modInverse(N);
+        BigInteger u1 = e.multiply(c).mod(N);
+        BigInteger u2 = r.multiply(c).mod(N);
+
+        ECPoint point = sumOfMultiplies(u1, u2, q);
+
+        if (point.isInfinity()) {
+            return false;
+        }
+
+        // x(point) mod n == r, checked as X == x * Z^2 for the (at most two) candidates x = r and x = r + n,
+        // which saves the field inversion a normalization would need
+        ECFieldElement z = point.getZCoord(0);
+        ECFieldElement x = point.getRawXCoord();
+
+        if (z.isOne()) {
+            return x.toBigInteger().mod(N).equals(r);
+        }
+
+        ECFieldElement zz = z.square();
+
+        if (EC_CURVE.fromBigInteger(r).multiply(zz).equals(x)) {
+            return true;
+        }
+
+        BigInteger rPlusN = r.add(N);
+
+        return rPlusN.compareTo(P) < 0 && EC_CURVE.fromBigInteger(rPlusN).multiply(zz).equals(x);
+    }
+
+    /**
+     * Recovers the public key point from a signature, following SEC1v2 section 4.1.6.
+     *
+     * @return the normalized public key point, or null if recovery wasn't possible for this recId.
+     */
+    static ECPoint recover(int recId, BigInteger r, BigInteger s, byte[] messageHash) {
+        BigInteger x = r.add(BigInteger.valueOf((long) recId / 2).multiply(N));
+
+        if (x.compareTo(P) >= 0) {
+            return null;
+        }
+
+        ECPoint point = decompressKey(x, (recId & 1) == 1);
+
+        // secp256k1 has cofactor 1, so every point on the curve has order n and the nR == infinity check of
+        // step 1.4 always holds
+
+        BigInteger e = new BigInteger(1, messageHash);
+        BigInteger eInv = BigInteger.ZERO.subtract(e).mod(N);
+        BigInteger rInv = r.modInverse(N);
+        BigInteger srInv = rInv.multiply(s).mod(N);
+        BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+
+        return sumOfMultiplies(eInvrInv, srInv, point).normalize();
+    }
+
+    static ECPoint decodePoint(byte[] encoded) {
+        return EC_CURVE.decodePoint(encoded);
+    }
+
+    private static ECPoint decompressKey(BigInteger xBN, boolean yBit) {
+        X9IntegerConverter x9 = new X9IntegerConverter();
+        byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(EC_CURVE));
+        compEnc[0] = (byte) (yBit ? 0x03 : 0x02);
+        return EC_CURVE.decodePoint(compEnc);
+    }
+
+    private static BigInteger calculateE(byte[] message) {
+        int log2n = N.bitLength();
+        int messageBitLength = message.length * 8;
+        BigInteger e = new BigInteger(1, message);
+
+        if (log2n < messageBitLength) {
+            e = e.shiftRight(messageBitLength - log2n);
+        }
+
+        return e;
+    }
+
+    private static ECPoint[][] buildGeneratorTable() {
+        ECPoint[] points = new ECPoint[COMB_WINDOWS * COMB_POINTS];
+        ECPoint base = CURVE.getG();
+
+        for (int i = 0; i < COMB_WINDOWS; i++) {
+            ECPoint point = base;
+
+            for (int j = 0; j < COMB_POINTS; j++) {
+                points[i * COMB_POINTS + j] = point;
+                point = point.add(base);
+            }
+
+            // after the loop point == 2^8 * base
+            base = point;
+        }
+
+        // a single inversion for the whole table (Montgomery's trick)
+        EC_CURVE.normalizeAll(points);
+
+        ECPoint[][] table = new ECPoint[COMB_WINDOWS][COMB_POINTS];
+
+        for (int i = 0; i < COMB_WINDOWS; i++) {
+            System.arraycopy(points, i * COMB_POINTS, table[i], 0, COMB_POINTS);
+        }
+
+        return table;
+    }
+}
@@ -21,6 +21,8 @@
 
 package org.ethereum.crypto.cryptohash;
 
+import java.nio.ByteBuffer;
+
 /**
  * <p>This class is a template which can be used to implement hash
  * functions. It takes care of some of the API, and also provides an
@@ -207,6 +209,39 @@ public abstract class DigestEngine implements Digest {
 		}
 	}
 
+	/**
+	 * Insert the remaining bytes of a buffer. The buffer position is
+	 * moved to its limit. Direct buffers are copied block by block into
+	 * the internal buffer, so no memory is allocated.
+	 *
+	 * @param input   the data buffer
+	 */
+	public void update(ByteBuffer input)
+	{
+		if (input.hasArray()) {
+			int len = input.remaining();
+			update(input.array(), input.arrayOffset() + input.position(), len);
+			input.position(input.position() + len);
+			return;
+		}
+
+		int len = input.remaining();
+		while (len > 0) {
+			int copyLen = blockLen - inputLen;
+			if (copyLen > len) {
+                copyLen = len;
+            }
+			input.get(inputBuf, inputLen, copyLen);
+			inputLen += copyLen;
+			len -= copyLen;
+			if (inputLen == blockLen) {
+				processBlock(inputBuf);
+				blockCount ++;
+				inputLen = 0;
+			}
+		}
+	}
+
 	/**
 	 * Get the internal block length. This is the length (in
 	 * bytes) of the array which will be passed as parameter to
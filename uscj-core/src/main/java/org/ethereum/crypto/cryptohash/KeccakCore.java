@@ -129,10 +129,23 @@ abstract class KeccakCore extends DigestEngine {
 
 	/** @see org.ethereum.crypto.cryptohash.DigestEngine */
 	protected void processBlock(byte[] data)
+	{
+		processBlock(data, 0);
+	}
+
+	/**
+	 * Absorb one block read in place from {@code data} at offset
+	 * {@code off}, without going through the internal block buffer.
+	 *
+	 * @param data   the data buffer
+	 * @param off    the offset of the block in {@code data}
+	 */
+	private void processBlock(byte[] data, int off)
 	{
 		/* Input block */
-		for (int i = 0; i < data.length; i += 8) {
-            a[i >>> 3] ^= decodeLELong(data, i);
+		int blockLen = getBlockLength();
+		for (int i = 0; i < blockLen; i += 8) {
+            a[i >>> 3] ^= decodeLELong(data, off + i);
         }
 
 		long t0;
@@ -552,6 +565,33 @@ abstract class KeccakCore extends DigestEngine {
 		}
 	}
 
+	/**
+	 * Compute the hash of {@code len} bytes of {@code input} starting
+	 * at {@code inOff} and write it to {@code out} at {@code outOff}.
+	 * Any pending input is discarded first. Full blocks are absorbed
+	 * directly from {@code input}, so no memory is allocated; this is
+	 * meant for engines that are reused across many short inputs.
+	 *
+	 * @param input    the data buffer
+	 * @param inOff    the data offset in {@code input}
+	 * @param len      the data length (in bytes)
+	 * @param out      the output buffer
+	 * @param outOff   the output offset in {@code out}
+	 * @return  the number of bytes written
+	 */
+	public int digest(byte[] input, int inOff, int len, byte[] out, int outOff)
+	{
+		reset();
+		int blockLen = getBlockLength();
+		while (len >= blockLen) {
+			processBlock(input, inOff);
+			inOff += blockLen;
+			len -= blockLen;
+		}
+		update(input, inOff, len);
+		return digest(out, outOff, getDigestLength());
+	}
+
 	/** @see org.ethereum.crypto.cryptohash.DigestEngine */
 	protected void doPadding(byte[] out, int off)
 	{
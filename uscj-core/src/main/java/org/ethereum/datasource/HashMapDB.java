@@ -75,7 +75,13 @@ public class HashMapDB implements KeyValueDataSource {
     @Override
     public synchronized void updateBatch(Map<byte[], byte[]> rows) {
         rows.entrySet().stream().
-                forEach(entry -> storage.put(wrap(entry.getKey()), entry.getValue()));
+                forEach(entry -> {
+                    if (entry.getValue() == null) {
+                        storage.remove(wrap(entry.getKey()));
+                    } else {
+                        storage.put(wrap(entry.getKey()), entry.getValue());
+                    }
+                });
     }
 
     public synchronized HashMapDB setClearOnClose(boolean clearOnClose) {
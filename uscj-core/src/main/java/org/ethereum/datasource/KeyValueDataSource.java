@@ -36,6 +36,9 @@ public interface KeyValueDataSource extends DataSource {
 
     Set<byte[]> keys();
 
+    /**
+     * Writes all the rows at once, a row with a null value deletes its key.
+     */
     void updateBatch(Map<byte[], byte[]> rows);
 
     default void copyFrom(KeyValueDataSource ds) {
@@ -304,6 +304,50 @@ public class ContractDetailsCacheImpl implements ContractDetails {
         throw new UnsupportedOperationException("codeHash option during cache state");
     }
 
+    /**
+     * Captures the code and flags of these details, for the journal of a {@link NestedRepositoryTrack}.
+     */
+    Runnable snapshotState() {
+        byte[] savedCode = this.code;
+        boolean savedDirty = this.dirty;
+        boolean savedDeleted = this.deleted;
+
+        return () -> {
+            this.code = savedCode;
+            this.dirty = savedDirty;
+            this.deleted = savedDeleted;
+        };
+    }
+
+    /**
+     * Captures the cached entry for a storage key (or its absence), for the journal of a
+     * {@link NestedRepositoryTrack}.
+     */
+    Runnable snapshotStorageRow(DataWord key) {
+        DataWord savedKey = key.clone();
+
+        if (!storage.containsKey(savedKey)) {
+            return () -> storage.remove(savedKey);
+        }
+
+        DataWord savedValue = storage.get(savedKey);
+        return () -> storage.put(savedKey, savedValue);
+    }
+
+    /**
+     * Same as {@link #snapshotStorageRow(DataWord)} for the byte storage.
+     */
+    Runnable snapshotStorageBytes(DataWord key) {
+        DataWord savedKey = key.clone();
+
+        if (!bytesStorage.containsKey(savedKey)) {
+            return () -> bytesStorage.remove(savedKey);
+        }
+
+        byte[] savedValue = bytesStorage.get(savedKey);
+        return () -> bytesStorage.put(savedKey, savedValue);
+    }
+
     public ContractDetails getOriginalContractDetails() {
         return this.origContract;
     }
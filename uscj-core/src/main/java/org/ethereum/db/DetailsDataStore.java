@@ -27,8 +27,10 @@ import org.ethereum.crypto.Keccak256Helper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static org.ethereum.util.ByteUtil.toHexString;
@@ -40,6 +42,10 @@ public class DetailsDataStore {
 
     private static final Logger gLogger = LoggerFactory.getLogger("general");
 
+    // written in the same batch as the details, after the storage and state tries they point to,
+    // so its presence means everything up to that state root reached the disk
+    private static final byte[] FLUSHED_STATE_ROOT_KEY = "flushedStateRoot".getBytes(StandardCharsets.UTF_8);
+
     private final Map<UscAddress, ContractDetails> cache = new ConcurrentHashMap<>();
     private final Set<UscAddress> removes = new HashSet<>();
 
@@ -120,18 +126,34 @@ public class DetailsDataStore {
     }
 
     public synchronized void flush() {
+        flush(null);
+    }
+
+    /**
+     * Writes the cached details, and the given state root as the last flushed one, in a single batch.
+     * Contract storage tries are saved before that batch is written.
+     */
+    public synchronized void flush(byte[] stateRoot) {
         long keys = cache.size();
 
         long start = System.nanoTime();
-        long totalSize = flushInternal();
+        long totalSize = flushInternal(stateRoot);
         long finish = System.nanoTime();
 
         float flushSize = (float) totalSize / 1_048_576;
         float flushTime = (float) (finish - start) / 1_000_000;
         gLogger.trace(format("Flush details in: %02.2f ms, %d keys, %02.2fMB", flushTime, keys, flushSize));
+        gLogger.trace("Contract storage tries retrieved: {}", ContractDetailsImpl.getTrieRetrievalCount());
     }
 
-    private long flushInternal() {
+    /**
+     * @return the state root recorded by the last complete flush, or null if there is none
+     */
+    public synchronized byte[] getFlushedStateRoot() {
+        return db.get(FLUSHED_STATE_ROOT_KEY);
+    }
+
+    private long flushInternal(byte[] stateRoot) {
         long totalSize = 0;
 
         Map<byte[], byte[]> batch = new HashMap<>();
@@ -147,12 +169,18 @@ public class DetailsDataStore {
             totalSize += value.length;
         }
 
-        db.getDb().updateBatch(batch);
-
         for (UscAddress key : removes) {
-            db.delete(key.getBytes());
+            batch.put(key.getBytes(), null);
+        }
+
+        // the details, their removals and the marker are written together,
+        // so a marker on disk always means the whole flush is there
+        if (stateRoot != null) {
+            batch.put(FLUSHED_STATE_ROOT_KEY, stateRoot);
         }
 
+        db.getDb().updateBatch(batch);
+
         cache.clear();
         removes.clear();
 
@@ -163,7 +191,10 @@ public class DetailsDataStore {
     public synchronized Set<UscAddress> keys() {
         Set<UscAddress> keys = new HashSet<>();
         keys.addAll(cache.keySet());
-        keys.addAll(db.dumpKeys(UscAddress::new));
+        keys.addAll(db.dumpKeys(key -> key).stream()
+                .filter(key -> !Arrays.equals(key, FLUSHED_STATE_ROOT_KEY))
+                .map(UscAddress::new)
+                .collect(Collectors.toList()));
 
         return keys;
     }
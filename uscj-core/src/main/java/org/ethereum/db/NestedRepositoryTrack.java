@@ -0,0 +1,282 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.db;
+
+import co.usc.core.Coin;
+import co.usc.core.UscAddress;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.Block;
+import org.ethereum.core.Repository;
+import org.ethereum.vm.DataWord;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository for a nested call frame, working directly on the caches of a {@link RepositoryTrack}.
+ *
+ * Reads go straight to the underlying track. Writes record an undo entry in the {@link RepositoryJournal}
+ * before being applied, so commit just closes the frame and rollback replays the entries written since it
+ * was opened, instead of copying account states and storage maps from one track to the next.
+ */
+public class NestedRepositoryTrack implements Repository {
+
+    private final RepositoryTrack track;
+    private final RepositoryJournal journal;
+    private final NestedRepositoryTrack parent;
+    private final int depth;
+
+    NestedRepositoryTrack(RepositoryTrack track, RepositoryJournal journal) {
+        this(track, journal, null);
+    }
+
+    private NestedRepositoryTrack(RepositoryTrack track, RepositoryJournal journal, NestedRepositoryTrack parent) {
+        this.track = track;
+        this.journal = journal;
+        this.parent = parent;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+    }
+
+    NestedRepositoryTrack getParent() {
+        return parent;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public AccountState createAccount(UscAddress addr) {
+        journal.enter(this);
+        journal.record(track.snapshotAccount(addr));
+        return track.createAccount(addr);
+    }
+
+    @Override
+    public boolean isExist(UscAddress addr) {
+        return track.isExist(addr);
+    }
+
+    @Override
+    public AccountState getAccountState(UscAddress addr) {
+        return track.getAccountState(addr);
+    }
+
+    @Override
+    public void delete(UscAddress addr) {
+        enterForAccount(addr);
+        track.delete(addr);
+    }
+
+    @Override
+    public void hibernate(UscAddress addr) {
+        enterForAccount(addr);
+        track.hibernate(addr);
+    }
+
+    @Override
+    public BigInteger increaseNonce(UscAddress addr) {
+        enterForAccount(addr);
+        return track.increaseNonce(addr);
+    }
+
+    @Override
+    public ContractDetails getContractDetails(UscAddress addr) {
+        return track.getContractDetails(addr);
+    }
+
+    @Override
+    public void saveCode(UscAddress addr, byte[] code) {
+        enterForAccount(addr);
+        track.saveCode(addr, code);
+    }
+
+    @Override
+    public byte[] getCode(UscAddress addr) {
+        return track.getCode(addr);
+    }
+
+    @Override
+    public void addStorageRow(UscAddress addr, DataWord key, DataWord value) {
+        enterForAccount(addr);
+        journal.record(getCachedDetails(addr).snapshotStorageRow(key));
+        track.addStorageRow(addr, key, value);
+    }
+
+    @Override
+    public void addStorageBytes(UscAddress addr, DataWord key, byte[] value) {
+        enterForAccount(addr);
+        journal.record(getCachedDetails(addr).snapshotStorageBytes(key));
+        track.addStorageBytes(addr, key, value);
+    }
+
+    @Override
+    public DataWord getStorageValue(UscAddress addr, DataWord key) {
+        return track.getStorageValue(addr, key);
+    }
+
+    @Override
+    public byte[] getStorageBytes(UscAddress addr, DataWord key) {
+        return track.getStorageBytes(addr, key);
+    }
+
+    @Override
+    public Coin getBalance(UscAddress addr) {
+        return track.getBalance(addr);
+    }
+
+    @Override
+    public Coin addBalance(UscAddress addr, Coin value) {
+        enterForAccount(addr);
+        return track.addBalance(addr, value);
+    }
+
+    @Override
+    public BigInteger getNonce(UscAddress addr) {
+        return track.getNonce(addr);
+    }
+
+    @Override
+    public Set<UscAddress> getAccountsKeys() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dumpState(Block block, long gasUsed, int txNumber, byte[] txHash) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new NestedRepositoryTrack(track, journal, this);
+    }
+
+    @Override
+    public Repository startNestedTracking() {
+        return startTracking();
+    }
+
+    @Override
+    public void flush() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void flushNoReconnect() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void commit() {
+        journal.commit(this);
+    }
+
+    @Override
+    public void rollback() {
+        journal.rollback(this);
+    }
+
+    @Override
+    public void syncToRoot(byte[] root) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isClosed() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void updateBatch(Map<UscAddress, AccountState> accountStates,
+                            Map<UscAddress, ContractDetails> contractDetails) {
+        journal.enter(this);
+
+        Set<UscAddress> addresses = new HashSet<>(accountStates.keySet());
+        addresses.addAll(contractDetails.keySet());
+
+        for (UscAddress addr : addresses) {
+            journal.record(track.snapshotAccount(addr));
+        }
+
+        track.updateBatch(accountStates, contractDetails);
+    }
+
+    @Override
+    public byte[] getRoot() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void loadAccount(UscAddress addr, Map<UscAddress, AccountState> cacheAccounts,
+                            Map<UscAddress, ContractDetails> cacheDetails) {
+        track.loadAccount(addr, cacheAccounts, cacheDetails);
+    }
+
+    @Override
+    public Repository getSnapshotTo(byte[] root) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Repository getOriginRepository() {
+        return track.getOriginRepository();
+    }
+
+    @Override
+    public DetailsDataStore getDetailsDataStore() {
+        return track.getDetailsDataStore();
+    }
+
+    @Override
+    public void updateContractDetails(UscAddress addr, ContractDetails contractDetails) {
+        journal.enter(this);
+        journal.record(track.snapshotAccount(addr));
+        track.updateContractDetails(addr, contractDetails);
+    }
+
+    @Override
+    public void updateAccountState(UscAddress addr, AccountState accountState) {
+        journal.enter(this);
+        journal.record(track.snapshotAccount(addr));
+        track.updateAccountState(addr, accountState);
+    }
+
+    private void enterForAccount(UscAddress addr) {
+        journal.enter(this);
+        // loading is not undone, same as a rolled back track leaves what it loaded in its parent
+        track.getAccountState(addr);
+        journal.record(track.snapshotAccount(addr));
+    }
+
+    private ContractDetailsCacheImpl getCachedDetails(UscAddress addr) {
+        return (ContractDetailsCacheImpl) track.getContractDetails(addr);
+    }
+}
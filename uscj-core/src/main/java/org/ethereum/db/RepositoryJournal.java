@@ -0,0 +1,120 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo log shared by all the nested tracks opened over the same {@link RepositoryTrack}.
+ *
+ * Every write done through a nested track first records how to restore what it is about to change. Opening a
+ * frame only remembers the current length of the log, committing a frame forgets that mark and rolling it back
+ * replays the log backwards down to it.
+ *
+ * Frames follow the call stack, so a frame is reopened lazily when a committed track is written again, and
+ * frames left open above the one being written (e.g. a call aborted by an exception) are rolled back first,
+ * the same as an abandoned track used to be dropped. Not thread safe, like the tracks themselves.
+ */
+final class RepositoryJournal {
+
+    private final List<Runnable> undoLog = new ArrayList<>();
+    private final List<Frame> frames = new ArrayList<>();
+
+    void record(Runnable undo) {
+        undoLog.add(undo);
+    }
+
+    /**
+     * Makes the given track the innermost open frame.
+     */
+    void enter(NestedRepositoryTrack track) {
+        int depth = track.getDepth();
+
+        if (isOpen(track, depth)) {
+            rollbackAbove(depth);
+            return;
+        }
+
+        NestedRepositoryTrack parent = track.getParent();
+
+        if (parent != null) {
+            enter(parent);
+        } else {
+            rollbackAbove(0);
+        }
+
+        frames.add(new Frame(track, undoLog.size()));
+    }
+
+    void commit(NestedRepositoryTrack track) {
+        enter(track);
+        frames.remove(frames.size() - 1);
+
+        if (frames.isEmpty()) {
+            // nothing left that could be rolled back
+            undoLog.clear();
+        }
+    }
+
+    void rollback(NestedRepositoryTrack track) {
+        enter(track);
+        rollbackAbove(track.getDepth() - 1);
+    }
+
+    /**
+     * Rolls back whatever is still open, before the owning track commits.
+     */
+    void reset() {
+        rollbackAbove(0);
+        undoLog.clear();
+    }
+
+    /**
+     * Forgets everything, when the owning track drops its caches anyway.
+     */
+    void clear() {
+        frames.clear();
+        undoLog.clear();
+    }
+
+    private boolean isOpen(NestedRepositoryTrack track, int depth) {
+        return frames.size() >= depth && frames.get(depth - 1).track == track;
+    }
+
+    private void rollbackAbove(int depth) {
+        while (frames.size() > depth) {
+            Frame frame = frames.remove(frames.size() - 1);
+
+            for (int i = undoLog.size() - 1; i >= frame.mark; i--) {
+                undoLog.remove(i).run();
+            }
+        }
+    }
+
+    private static final class Frame {
+        private final NestedRepositoryTrack track;
+        private final int mark;
+
+        private Frame(NestedRepositoryTrack track, int mark) {
+            this.track = track;
+            this.mark = mark;
+        }
+    }
+}
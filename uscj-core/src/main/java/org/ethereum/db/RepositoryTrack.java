@@ -59,6 +59,9 @@ public class RepositoryTrack implements Repository {
     private final TrieStore.Pool trieStorePool;
     private final int memoryStorageLimit;
 
+    // undo log of the nested tracks working directly on this track's caches, see startNestedTracking
+    private final RepositoryJournal journal = new RepositoryJournal();
+
     public RepositoryTrack(Repository repository, TrieStore.Pool trieStorePool, int memoryStorageLimit) {
         this.repository = repository;
         this.trieStorePool = trieStorePool;
@@ -331,6 +334,59 @@ public class RepositoryTrack implements Repository {
         return new RepositoryTrack(this, trieStorePool, memoryStorageLimit);
     }
 
+    /**
+     * Nested tracks write straight into this track's caches and keep an undo log instead of copying
+     * accounts and storage, so opening, committing and rolling back a call frame is O(1) plus the writes
+     * done inside it. Anything a nested track left open is rolled back on this track's own commit or rollback.
+     */
+    @Override
+    public Repository startNestedTracking() {
+        return new NestedRepositoryTrack(this, journal);
+    }
+
+    /**
+     * Captures the cached account state, the details object and its flags for an address, so a nested
+     * track can put them back. The account is copied, the details are restored in place.
+     */
+    Runnable snapshotAccount(UscAddress addr) {
+        AccountState accountState = cacheAccounts.get(addr);
+        ContractDetails contractDetails = cacheDetails.get(addr);
+
+        AccountState savedAccountState = accountState == null ? null : copyAccountState(accountState);
+        Runnable savedDetailsState = contractDetails instanceof ContractDetailsCacheImpl
+                ? ((ContractDetailsCacheImpl) contractDetails).snapshotState()
+                : null;
+
+        return () -> {
+            if (savedAccountState == null) {
+                cacheAccounts.remove(addr);
+            } else {
+                cacheAccounts.put(addr, savedAccountState);
+            }
+
+            if (contractDetails == null) {
+                cacheDetails.remove(addr);
+            } else {
+                cacheDetails.put(addr, contractDetails);
+            }
+
+            if (savedDetailsState != null) {
+                savedDetailsState.run();
+            }
+        };
+    }
+
+    private static AccountState copyAccountState(AccountState accountState) {
+        // unlike AccountState.clone this keeps the deleted and dirty flags
+        AccountState copy = new AccountState(accountState.getNonce(), accountState.getBalance());
+        copy.setCodeHash(accountState.getCodeHash());
+        copy.setStateRoot(accountState.getStateRoot());
+        copy.setStateFlags(accountState.getStateFlags());
+        copy.setDirty(accountState.isDirty());
+        copy.setDeleted(accountState.isDeleted());
+        return copy;
+    }
+
 
     @Override
     public void flush() {
@@ -346,6 +402,7 @@ public class RepositoryTrack implements Repository {
     public void commit() {
 
         synchronized (repository) {
+            journal.reset();
             applyCacheDetailsChanges();
 
             repository.updateBatch(cacheAccounts, cacheDetails);
@@ -374,6 +431,7 @@ public class RepositoryTrack implements Repository {
     public void rollback() {
         logger.debug("rollback changes");
 
+        journal.clear();
         cacheAccounts.clear();
         cacheDetails.clear();
     }
@@ -4,30 +4,96 @@ import co.usc.trie.TrieStore;
 import co.usc.trie.TrieStoreImpl;
 
 import org.ethereum.datasource.DataSourcePool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by ajlopez on 06/11/2018.
+ *
+ * Keeps one long-lived store per name (most contracts share "contracts-storage"),
+ * instead of wrapping the pooled data source again on every request
  */
 public class TrieStorePoolOnDisk implements TrieStore.Pool {
+    private static final Logger logger = LoggerFactory.getLogger("db");
+
     private String databaseDir;
 
+    private final Map<String, TrieStore> stores = new ConcurrentHashMap<>();
+    // names already checked and not found on disk, saves a file system lookup per contract
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reopened = new AtomicLong();
+
     public TrieStorePoolOnDisk(String databaseDir) {
         this.databaseDir = databaseDir;
     }
 
     public TrieStore getInstanceFor(String name) {
-        return new TrieStoreImpl(DataSourcePool.levelDbByName(name, this.databaseDir));
+        TrieStore store = stores.get(name);
+
+        if (store != null && store.getDataSource().isAlive()) {
+            return store;
+        }
+
+        return stores.compute(name, (key, current) -> {
+            if (current != null && current.getDataSource().isAlive()) {
+                return current;
+            }
+
+            missing.remove(key);
+
+            if (current == null) {
+                opened.incrementAndGet();
+                logger.debug("Opening trie store '{}'", key);
+            } else {
+                logger.debug("Reopening trie store '{}', {} reopens so far", key, reopened.incrementAndGet());
+            }
+
+            return new TrieStoreImpl(DataSourcePool.levelDbByName(key, this.databaseDir));
+        });
     }
 
     public boolean existsInstanceFor(String name) {
-        return DataSourcePool.levelDbExists(name, this.databaseDir);
+        if (stores.containsKey(name)) {
+            return true;
+        }
+
+        if (missing.contains(name)) {
+            return false;
+        }
+
+        boolean exists = DataSourcePool.levelDbExists(name, this.databaseDir);
+
+        if (!exists) {
+            missing.add(name);
+        }
+
+        return exists;
     }
 
     public void destroyInstanceFor(String name) {
+        stores.remove(name);
         DataSourcePool.levelDbDestroy(name, this.databaseDir);
+        missing.add(name);
     }
 
     public void closeInstanceFor(String name) {
-        DataSourcePool.closeDataSource(name);
+        if (stores.remove(name) != null) {
+            DataSourcePool.closeDataSource(name);
+        }
+    }
+
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    public long getReopenedCount() {
+        return reopened.get();
     }
 }
@@ -0,0 +1,35 @@
+package org.ethereum.db;
+
+import co.usc.trie.TrieStore;
+import co.usc.trie.TrieStoreImpl;
+import org.ethereum.datasource.HashMapDB;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the named trie stores in memory, for tools that build a blockchain without touching the disk
+ */
+public class TrieStorePoolOnMemory implements TrieStore.Pool {
+    private final Map<String, TrieStore> stores = new ConcurrentHashMap<>();
+
+    @Override
+    public TrieStore getInstanceFor(String name) {
+        return stores.computeIfAbsent(name, key -> new TrieStoreImpl(new HashMapDB()));
+    }
+
+    @Override
+    public boolean existsInstanceFor(String name) {
+        return stores.containsKey(name);
+    }
+
+    @Override
+    public void destroyInstanceFor(String name) {
+        stores.remove(name);
+    }
+
+    @Override
+    public void closeInstanceFor(String name) {
+        // nothing to close, and the content has to survive it as it does on disk
+    }
+}
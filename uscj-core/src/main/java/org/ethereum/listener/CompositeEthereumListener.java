@@ -19,7 +19,6 @@
 
 package org.ethereum.listener;
 
-import co.usc.panic.PanicProcessor;
 import org.ethereum.core.*;
 import org.ethereum.net.eth.message.StatusMessage;
 import org.ethereum.net.message.Message;
@@ -32,121 +31,160 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
+ * Delivers the events to each listener on its own {@link ListenerLane}, so a slow listener
+ * only delays its own events.
+ *
  * @author Roman Mandeleil
  * @since 12.11.2014
  */
 public class CompositeEthereumListener implements EthereumListener {
     private static final Logger logger = LoggerFactory.getLogger("events");
-    private static final PanicProcessor panicProcessor = new PanicProcessor();
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    // blocks between two reports of the lanes dispatch lag
+    private static final int LANES_LOG_INTERVAL = 100;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    // lanes with pending events take a thread, the idle ones don't hold any
+    private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "EventDispatch-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Using a concurrent list
     // (the add and remove methods copy an internal array,
     // but the iterator directly use the internal array)
-    private final List<EthereumListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ListenerLane> lanes = new CopyOnWriteArrayList<>();
+
+    private final int queueSize;
+
+    public CompositeEthereumListener() {
+        this(DEFAULT_QUEUE_SIZE);
+    }
+
+    public CompositeEthereumListener(int queueSize) {
+        this.queueSize = queueSize;
+    }
 
     public void addListener(EthereumListener listener) {
-        listeners.add(listener);
+        lanes.add(new ListenerLane(listener, executor, queueSize));
     }
+
     public void removeListener(EthereumListener listener) {
-        listeners.remove(listener);
+        for (ListenerLane lane : lanes) {
+            if (lane.getListener() == listener) {
+                lanes.remove(lane);
+                lane.close();
+            }
+        }
     }
 
     @Override
     public void trace(String output) {
-        scheduleListenerCallbacks(listener -> listener.trace(output));
+        scheduleListenerCallbacks("trace", listener -> listener.trace(output));
     }
 
     @Override
     public void onBlock(Block block, List<TransactionReceipt> receipts) {
-        scheduleListenerCallbacks(listener -> listener.onBlock(block, receipts));
+        scheduleListenerCallbacks("onBlock", listener -> listener.onBlock(block, receipts));
     }
 
     @Override
     public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
-        scheduleListenerCallbacks(listener -> listener.onBestBlock(block, receipts));
+        scheduleListenerCallbacks("onBestBlock", listener -> listener.onBestBlock(block, receipts));
+
+        if (block.getNumber() % LANES_LOG_INTERVAL == 0 && logger.isInfoEnabled()) {
+            for (ListenerLane lane : lanes) {
+                logger.info("Listener lane {}", lane);
+            }
+        }
     }
 
     @Override
     public void onRecvMessage(Channel channel, Message message) {
-        scheduleListenerCallbacks(listener -> listener.onRecvMessage(channel, message));
+        scheduleListenerCallbacks("onRecvMessage", listener -> listener.onRecvMessage(channel, message));
     }
 
     @Override
     public void onPeerDisconnect(String host, long port) {
-        scheduleListenerCallbacks(listener -> listener.onPeerDisconnect(host, port));
+        scheduleListenerCallbacks("onPeerDisconnect", listener -> listener.onPeerDisconnect(host, port));
     }
 
     @Override
     public void onPendingTransactionsReceived(List<Transaction> transactions) {
-        scheduleListenerCallbacks(listener -> listener.onPendingTransactionsReceived(transactions));
+        for (ListenerLane lane : lanes) {
+            lane.postPendingTransactions(transactions);
+        }
     }
 
     @Override
     public void onTransactionPoolChanged(TransactionPool transactionPool) {
-        scheduleListenerCallbacks(listener -> listener.onTransactionPoolChanged(transactionPool));
+        for (ListenerLane lane : lanes) {
+            lane.postPoolChanged(listener -> listener.onTransactionPoolChanged(transactionPool));
+        }
     }
 
     @Override
     public void onSyncDone() {
-        scheduleListenerCallbacks(EthereumListener::onSyncDone);
+        scheduleListenerCallbacks("onSyncDone", EthereumListener::onSyncDone);
     }
 
     @Override
     public void onNoConnections() {
-        scheduleListenerCallbacks(EthereumListener::onNoConnections);
+        scheduleListenerCallbacks("onNoConnections", EthereumListener::onNoConnections);
     }
 
     @Override
     public void onHandShakePeer(Channel channel, HelloMessage helloMessage) {
-        scheduleListenerCallbacks(listener -> listener.onHandShakePeer(channel, helloMessage));
+        scheduleListenerCallbacks("onHandShakePeer", listener -> listener.onHandShakePeer(channel, helloMessage));
     }
 
     @Override
     public void onVMTraceCreated(String transactionHash, ProgramTrace trace) {
-        scheduleListenerCallbacks(listener -> listener.onVMTraceCreated(transactionHash, trace));
+        scheduleListenerCallbacks("onVMTraceCreated", listener -> listener.onVMTraceCreated(transactionHash, trace));
     }
 
     @Override
     public void onNodeDiscovered(Node node) {
-        scheduleListenerCallbacks(listener -> listener.onNodeDiscovered(node));
+        scheduleListenerCallbacks("onNodeDiscovered", listener -> listener.onNodeDiscovered(node));
     }
 
     @Override
     public void onEthStatusUpdated(Channel channel, StatusMessage status) {
-        scheduleListenerCallbacks(listener -> listener.onEthStatusUpdated(channel, status));
+        scheduleListenerCallbacks("onEthStatusUpdated", listener -> listener.onEthStatusUpdated(channel, status));
     }
 
     @Override
     public void onTransactionExecuted(TransactionExecutionSummary summary) {
-        scheduleListenerCallbacks(listener -> listener.onTransactionExecuted(summary));
+        scheduleListenerCallbacks("onTransactionExecuted", listener -> listener.onTransactionExecuted(summary));
     }
 
     @Override
     public void onPeerAddedToSyncPool(Channel peer) {
-        scheduleListenerCallbacks(listener -> listener.onPeerAddedToSyncPool(peer));
+        scheduleListenerCallbacks("onPeerAddedToSyncPool", listener -> listener.onPeerAddedToSyncPool(peer));
     }
 
     @Override
     public void onLongSyncDone() {
-        scheduleListenerCallbacks(EthereumListener::onLongSyncDone);
+        scheduleListenerCallbacks("onLongSyncDone", EthereumListener::onLongSyncDone);
     }
 
     @Override
     public void onLongSyncStarted() {
-        scheduleListenerCallbacks(EthereumListener::onLongSyncStarted);
+        scheduleListenerCallbacks("onLongSyncStarted", EthereumListener::onLongSyncStarted);
     }
 
-    private void scheduleListenerCallbacks(Consumer<EthereumListener> callback) {
-        for (EthereumListener listener : listeners) {
-            try {
-                callback.accept(listener);
-            } catch (Throwable e) {
-                logger.error("Listener callback failed with exception", e);
-                panicProcessor.panic("thread", String.format("Listener callback failed with exception %s", e.getMessage()));
-            }
+    private void scheduleListenerCallbacks(String event, Consumer<EthereumListener> callback) {
+        for (ListenerLane lane : lanes) {
+            lane.post(event, callback);
         }
     }
 }
@@ -19,64 +19,145 @@
 
 package org.ethereum.listener;
 
+import co.usc.BpListManager.BlmTransaction;
+import co.usc.bp.BlockGasPriceRange;
 import co.usc.core.Coin;
+import co.usc.remasc.RemascTransaction;
 import org.ethereum.core.Block;
 import org.ethereum.core.Transaction;
 import org.ethereum.core.TransactionReceipt;
+import org.ethereum.util.ByteUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.math.BigInteger;
 import java.util.List;
 
 /**
  * Calculates a 'reasonable' Gas price based on statistics of the latest transaction's Gas prices
  *
- * Normally the price returned should be sufficient to execute a transaction since ~25% of the latest
- * transactions were executed at this or lower price.
+ * Normally the price returned should be sufficient to execute a transaction since ~25% of the gas
+ * used by the transactions of the latest blocks was paid at this or lower price. It's never lower than
+ * the minimum gas price the next block can have.
+ *
+ * The prices are kept in a histogram of buckets 2% wide, weighted by the gas used, over the last
+ * blocks. The blocks leaving the window are subtracted from it, and the price is calculated once
+ * per block, so getGasPrice only reads it. The transactions added by the block producers (Remasc
+ * and BP list) and the free ones are not counted.
  *
  * Created by Anton Nashatyrev on 22.09.2015.
  */
 public class GasPriceTracker extends EthereumListenerAdapter {
     private static final Logger logger = LoggerFactory.getLogger("gaspricetracker");
 
-    private final Coin[] window = new Coin[512];
+    private static final int WINDOW_BLOCKS = 100;
+    private static final int PERCENTILE = 25;
+
+    // bucket i holds the prices in (GAMMA^(i - 1), GAMMA^i], the last one goes over 10^17
+    private static final double GAMMA = 1.02;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKETS = 2048;
+
     private final Coin defaultPrice = Coin.valueOf(20_000_000_000L);
-    private int idx = window.length - 1;
-    private boolean filled = false;
 
-    private Coin lastVal;
+    // only used by the listener
+    private final long[] weights = new long[BUCKETS];
+    private final BlockSample[] window = new BlockSample[WINDOW_BLOCKS];
+    private int idx = 0;
+    private long totalWeight = 0;
+
+    private volatile Coin lastVal = defaultPrice;
 
     @Override
     public void onBlock(Block block, List<TransactionReceipt> receipts) {
         logger.trace("Start onBlock");
 
-        for (Transaction tx : block.getTransactionsList()) {
-            onTransaction(tx);
+        BlockSample sample = new BlockSample(block.getTransactionsList(), receipts);
+        BlockSample old = window[idx];
+
+        if (old != null) {
+            old.addTo(weights, -1);
+            totalWeight -= old.totalWeight;
         }
 
+        sample.addTo(weights, 1);
+        totalWeight += sample.totalWeight;
+        window[idx] = sample;
+        idx = (idx + 1) % window.length;
+
+        Coin minimumGasPrice = block.getMinimumGasPrice();
+        Coin floor = minimumGasPrice == null ? null : new BlockGasPriceRange(minimumGasPrice).getUpperLimit();
+        lastVal = calculate(floor);
+
         logger.trace("End onBlock");
     }
 
-    public void onTransaction(Transaction tx) {
-        if (idx == -1) {
-            idx = window.length - 1;
-            filled = true;
-            lastVal = null;  // recalculate only 'sometimes'
+    public Coin getGasPrice() {
+        return lastVal;
+    }
+
+    private Coin calculate(Coin floor) {
+        if (totalWeight == 0) {
+            return floor == null ? defaultPrice : floor;
         }
-        window[idx--] = tx.getGasPrice();
+
+        long target = totalWeight * PERCENTILE / 100;
+        long accumulated = 0;
+        int bucket = 0;
+
+        while (bucket < BUCKETS - 1 && (accumulated += weights[bucket]) <= target) {
+            bucket++;
+        }
+
+        Coin price = Coin.valueOf((long) Math.ceil(Math.pow(GAMMA, bucket)));
+
+        return floor != null && floor.compareTo(price) > 0 ? floor : price;
     }
 
-    public Coin getGasPrice() {
-        if (!filled) {
-            return defaultPrice;
-        } else {
-            if (lastVal == null) {
-                Coin[] values = Arrays.copyOf(window, window.length);
-                Arrays.sort(values);
-                lastVal = values[values.length / 4];  // 25% percentile
+    private static int bucketOf(BigInteger price) {
+        int bucket = (int) Math.ceil(Math.log(price.doubleValue()) / LOG_GAMMA);
+        return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    /**
+     * The gas used at each price bucket by the transactions of a block
+     */
+    private static class BlockSample {
+        private final int[] buckets;
+        private final long[] gasUsed;
+        private int size;
+        private long totalWeight;
+
+        BlockSample(List<Transaction> txs, List<TransactionReceipt> receipts) {
+            int count = Math.min(txs.size(), receipts.size());
+            this.buckets = new int[count];
+            this.gasUsed = new long[count];
+
+            for (int k = 0; k < count; k++) {
+                Transaction tx = txs.get(k);
+
+                if (tx instanceof RemascTransaction || tx instanceof BlmTransaction) {
+                    continue;
+                }
+
+                BigInteger price = tx.getGasPrice().asBigInteger();
+                long gas = ByteUtil.byteArrayToLong(receipts.get(k).getGasUsed());
+
+                if (price.signum() <= 0 || gas <= 0) {
+                    continue;
+                }
+
+                buckets[size] = bucketOf(price);
+                gasUsed[size] = gas;
+                totalWeight += gas;
+                size++;
+            }
+        }
+
+        void addTo(long[] weights, int sign) {
+            for (int k = 0; k < size; k++) {
+                weights[buckets[k]] += sign * gasUsed[k];
             }
-            return lastVal;
         }
     }
 }
@@ -0,0 +1,248 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.listener;
+
+import co.usc.panic.PanicProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.ethereum.core.Transaction;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The events of one listener, delivered in order by at most one thread at a time.
+ *
+ * Every event is delivered, the thread that emits them is never blocked. Received transactions and pool
+ * changes are conflated: while one of these events waits in the queue, the next ones are merged into it,
+ * so a slow listener gets all the transactions in fewer calls. Only the events the listener overrides are
+ * queued at all.
+ */
+public class ListenerLane {
+    private static final Logger logger = LoggerFactory.getLogger("events");
+    private static final PanicProcessor panicProcessor = new PanicProcessor();
+
+    private final EthereumListener listener;
+    private final Set<String> events;
+    private final Executor executor;
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private final int capacity;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean poolChangedPending = new AtomicBoolean();
+
+    // the transactions of the queued received transactions event, null when there is none
+    private final Object pendingTransactionsLock = new Object();
+    private List<Transaction> pendingTransactions;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private volatile long lastLag;
+
+    private volatile boolean closed;
+
+    ListenerLane(EthereumListener listener, Executor executor, int capacity) {
+        this.listener = listener;
+        this.events = overriddenMethods(listener);
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    public EthereumListener getListener() {
+        return listener;
+    }
+
+    void post(String event, Consumer<EthereumListener> callback) {
+        if (events.contains(event)) {
+            enqueue(new Event(callback));
+        }
+    }
+
+    void postPendingTransactions(List<Transaction> transactions) {
+        if (!events.contains("onPendingTransactionsReceived")) {
+            return;
+        }
+
+        synchronized (pendingTransactionsLock) {
+            if (pendingTransactions != null) {
+                pendingTransactions.addAll(transactions);
+                conflated.incrementAndGet();
+                return;
+            }
+
+            pendingTransactions = new ArrayList<>(transactions);
+        }
+
+        if (!enqueue(new Event(target -> target.onPendingTransactionsReceived(takePendingTransactions())))) {
+            takePendingTransactions();
+        }
+    }
+
+    private List<Transaction> takePendingTransactions() {
+        synchronized (pendingTransactionsLock) {
+            // transactions received after this point need another event
+            List<Transaction> transactions = pendingTransactions;
+            pendingTransactions = null;
+            return transactions;
+        }
+    }
+
+    void postPoolChanged(Consumer<EthereumListener> callback) {
+        if (!events.contains("onTransactionPoolChanged")) {
+            return;
+        }
+
+        if (!poolChangedPending.compareAndSet(false, true)) {
+            conflated.incrementAndGet();
+            return;
+        }
+
+        if (!enqueue(new Event(target -> {
+            // changes after this point need another event
+            poolChangedPending.set(false);
+            callback.accept(target);
+        }))) {
+            poolChangedPending.set(false);
+        }
+    }
+
+    /**
+     * Discards the queued events, the listener won't be called again
+     */
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private boolean enqueue(Event event) {
+        if (closed) {
+            return false;
+        }
+
+        queue.add(event);
+
+        int size = queue.size();
+
+        if (capacity > 0 && size % capacity == 0) {
+            logger.warn("Listener {} is {} events behind", listener.getClass().getName(), size);
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+
+        return true;
+    }
+
+    private void drain() {
+        Event event;
+
+        while (!closed && (event = queue.poll()) != null) {
+            long lag = System.nanoTime() - event.created;
+            lastLag = lag;
+            maxLag.accumulateAndGet(lag, Math::max);
+
+            try {
+                event.callback.accept(listener);
+            } catch (Throwable e) {
+                logger.error("Listener callback failed with exception", e);
+                panicProcessor.panic("thread", String.format("Listener callback failed with exception %s", e.getMessage()));
+            }
+
+            dispatched.incrementAndGet();
+        }
+
+        scheduled.set(false);
+
+        // an event could have been queued after the last poll, but before clearing the flag
+        if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+
+    /**
+     * Milliseconds the last delivered event waited in the queue
+     */
+    public long getLastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLag);
+    }
+
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLag.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: queued %d, dispatched %d, conflated %d, lag %d ms (max %d ms)",
+                listener.getClass().getName(), getQueueSize(), getDispatchedCount(),
+                getConflatedCount(), getLastLagMillis(), getMaxLagMillis());
+    }
+
+    private static Set<String> overriddenMethods(EthereumListener listener) {
+        Set<String> names = new HashSet<>();
+
+        for (Method method : EthereumListener.class.getMethods()) {
+            try {
+                Method implementation = listener.getClass().getMethod(method.getName(), method.getParameterTypes());
+
+                if (implementation.getDeclaringClass() != EthereumListenerAdapter.class) {
+                    names.add(method.getName());
+                }
+            } catch (NoSuchMethodException e) {
+                names.add(method.getName());
+            }
+        }
+
+        return names;
+    }
+
+    private static class Event {
+        private final long created = System.nanoTime();
+        private final Consumer<EthereumListener> callback;
+
+        Event(Consumer<EthereumListener> callback) {
+            this.callback = callback;
+        }
+    }
+}
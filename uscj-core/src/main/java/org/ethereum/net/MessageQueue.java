@@ -32,8 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Queue;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.ethereum.net.message.StaticMessages.DISCONNECT_MESSAGE;
 
@@ -57,20 +57,14 @@ public class MessageQueue {
     private static final Logger logger = LoggerFactory.getLogger("net");
     private static final PanicProcessor panicProcessor = new PanicProcessor();
 
-    private static final ScheduledExecutorService timer = Executors.newScheduledThreadPool(4, new ThreadFactory() {
-        private AtomicInteger cnt = new AtomicInteger(0);
+    private Queue<MessageRoundtrip> requestQueue = new ConcurrentLinkedQueue<>();
+    private Queue<MessageRoundtrip> respondQueue = new ConcurrentLinkedQueue<>();
+    private volatile ChannelHandlerContext ctx = null;
 
-        public Thread newThread(Runnable r) {
-            return new Thread(r, "MessageQueueTimer-" + cnt.getAndIncrement());
-        }
-    });
-
-    private Queue<MessageRoundtrip> requestQueue = new LinkedBlockingQueue<>();
-    private Queue<MessageRoundtrip> respondQueue = new LinkedBlockingQueue<>();
-    private ChannelHandlerContext ctx = null;
-
-    boolean hasPing = false;
-    private ScheduledFuture<?> timerTask;
+    volatile boolean hasPing = false;
+    private volatile boolean closed = false;
+    // a pending task on the event loop already writes the queued messages
+    private final AtomicBoolean sendScheduled = new AtomicBoolean();
     private Channel channel;
 
     public MessageQueue() {
@@ -78,16 +72,7 @@ public class MessageQueue {
 
     public void activate(ChannelHandlerContext ctx) {
         this.ctx = ctx;
-        timerTask = timer.scheduleAtFixedRate(new Runnable() {
-            public void run() {
-                try {
-                    nudgeQueue();
-                } catch (Throwable t) {
-                    logger.error("Unhandled exception", t);
-                    panicProcessor.panic("messagequeue", String.format("Unhandled exception %s", t.toString()));
-                }
-            }
-        }, 10, 10, TimeUnit.MILLISECONDS);
+        scheduleSend();
     }
 
     public void setChannel(Channel channel) {
@@ -105,6 +90,8 @@ public class MessageQueue {
 
         Queue<MessageRoundtrip> queue = msg.getAnswerMessage() != null ? requestQueue : respondQueue;
         queue.add(new MessageRoundtrip(msg));
+
+        scheduleSend();
     }
 
     public void disconnect() {
@@ -138,43 +125,95 @@ public class MessageQueue {
                 }
                 logger.trace("Message round trip covered: [{}] ",
                         messageRoundtrip.getMsg().getClass());
+
+                // the next request can go now
+                scheduleSend();
             }
         }
     }
 
+    /**
+     * To be called when the writability of the channel changes, the queued messages wait while the channel
+     * has more outbound bytes pending than its high water mark
+     */
+    public void onWritabilityChanged() {
+        scheduleSend();
+    }
+
     private void removeAnsweredMessage(MessageRoundtrip messageRoundtrip) {
         if (messageRoundtrip != null && messageRoundtrip.isAnswered()) {
             requestQueue.remove();
         }
     }
 
-    private void nudgeQueue() {
-        // remove last answered message on the queue
-        removeAnsweredMessage(requestQueue.peek());
-        // Now send the next message
-        sendToWire(respondQueue.poll());
-        sendToWire(requestQueue.peek());
+    private void scheduleSend() {
+        ChannelHandlerContext context = this.ctx;
+
+        if (context == null || closed) {
+            return;
+        }
+
+        // messages queued before the task runs are written by it, and flushed together
+        if (sendScheduled.compareAndSet(false, true)) {
+            context.executor().execute(this::sendQueued);
+        }
     }
 
-    private void sendToWire(MessageRoundtrip messageRoundtrip) {
+    private void sendQueued() {
+        sendScheduled.set(false);
+
+        try {
+            if (closed) {
+                return;
+            }
+
+            boolean written = false;
+
+            while (ctx.channel().isWritable()) {
+                MessageRoundtrip messageRoundtrip = respondQueue.poll();
+
+                if (messageRoundtrip == null) {
+                    break;
+                }
+
+                written |= sendToWire(messageRoundtrip);
+            }
+
+            // remove last answered message on the queue
+            removeAnsweredMessage(requestQueue.peek());
+            // requests go one at a time, the next one after the answer of the previous one
+            written |= sendToWire(requestQueue.peek());
+
+            if (written) {
+                ctx.flush();
+            }
+        } catch (Throwable t) {
+            logger.error("Unhandled exception", t);
+            panicProcessor.panic("messagequeue", String.format("Unhandled exception %s", t.toString()));
+        }
+    }
+
+    private boolean sendToWire(MessageRoundtrip messageRoundtrip) {
 
         if (messageRoundtrip != null && messageRoundtrip.getRetryTimes() == 0) {
             // TODO: retry logic. See messageRoundtrip.hasToRetry
 
             Message msg = messageRoundtrip.getMsg();
 
-            ctx.writeAndFlush(msg).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+            ctx.write(msg).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
 
             if (msg.getAnswerMessage() != null) {
                 messageRoundtrip.incRetryTimes();
                 messageRoundtrip.saveTime();
             }
+
+            return true;
         }
+
+        return false;
     }
 
     public void close() {
-        if (timerTask != null) {
-            timerTask.cancel(false);
-        }
+        closed = true;
     }
 }
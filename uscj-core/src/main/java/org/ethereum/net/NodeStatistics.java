@@ -92,6 +92,9 @@ public class NodeStatistics {
     public final StatHandler rlpxHandshake = new StatHandler();
     public final StatHandler rlpxOutMessages = new StatHandler();
     public final StatHandler rlpxInMessages = new StatHandler();
+    // bytes saved by compressing the messages, net of its overhead
+    public final AtomicLong rlpxOutBytesSaved = new AtomicLong(0);
+    public final AtomicLong rlpxInBytesSaved = new AtomicLong(0);
 
     private String clientId = "";
 
@@ -195,7 +198,7 @@ public class NodeStatistics {
                 discoverInNeighbours + "/" + discoverOutFind + " " +
                 discoverOutNeighbours + "/" + discoverInFind + " " +
                 ", rlpx: " + rlpxHandshake + "/" + rlpxAuthMessagesSent + "/" + rlpxConnectionAttempts + " " +
-                rlpxInMessages + "/" + rlpxOutMessages +
+                rlpxInMessages + "/" + rlpxOutMessages + " saved " + rlpxInBytesSaved + "/" + rlpxOutBytesSaved +
                 ", eth: " + ethHandshake + "/" + ethInbound + "/" + ethOutbound + " " +
                 (disconnected ? "X " : "") +
                 (rlpxLastLocalDisconnectReason != null ? ("<=" + rlpxLastLocalDisconnectReason) : " ") +
@@ -19,6 +19,8 @@
 
 package org.ethereum.net.client;
 
+import org.ethereum.net.rlpx.MessageCompression;
+
 /**
  * The protocols and versions of those protocols that this peer support
  */
@@ -26,6 +28,9 @@ public class Capability implements Comparable<Capability> {
 
     public static final String P2P = "p2p";
     public static final String USC = "usc";
+    public static final String SNAPPY = "snappy";
+
+    public static final Capability SNAPPY_CAPABILITY = new Capability(SNAPPY, MessageCompression.VERSION);
 
     private String name;
     private byte version;
@@ -47,6 +52,10 @@ public class Capability implements Comparable<Capability> {
         return USC.equals(name);
     }
 
+    public boolean isSnappy() {
+        return SNAPPY.equals(name);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
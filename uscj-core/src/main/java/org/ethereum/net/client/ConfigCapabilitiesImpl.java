@@ -55,18 +55,21 @@ public class ConfigCapabilitiesImpl implements ConfigCapabilities{
                 allCaps.add(new Capability(USC, v.getCode()));
             }
         }
+        if (config.isPeerCompressionEnabled()) {
+            allCaps.add(SNAPPY_CAPABILITY);
+        }
         this.config = config;
     }
 
     /**
      * Gets the capabilities listed in 'peer.capabilities' config property
-     * sorted by their names.
+     * sorted by their names, plus snappy when 'peer.p2p.compression.enabled'
      */
     public List<Capability> getConfigCapabilities() {
         List<Capability> ret = new ArrayList<>();
         List<String> caps = config.peerCapabilities();
         for (Capability capability : allCaps) {
-            if (caps.contains(capability.getName())) {
+            if (caps.contains(capability.getName()) || capability.isSnappy()) {
                 ret.add(capability);
             }
         }
@@ -135,6 +135,12 @@ public class P2pHandler extends SimpleChannelInboundHandler<P2pMessage> {
         channel.getNodeStatistics().nodeDisconnectedLocal(reasonCode);
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        msgQueue.onWritabilityChanged();
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         logger.info("channel inactive: ", ctx.toString());
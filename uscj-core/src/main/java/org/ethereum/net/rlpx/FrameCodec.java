@@ -20,8 +20,7 @@
 package org.ethereum.net.rlpx;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import org.bouncycastle.crypto.StreamCipher;
 import org.bouncycastle.crypto.digests.KeccakDigest;
 import org.bouncycastle.crypto.engines.AESEngine;
@@ -32,6 +31,7 @@ import org.ethereum.util.RLP;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -39,20 +39,37 @@ import static org.ethereum.util.RLP.decode2OneItem;
 
 /**
  * Created by devrandom on 2015-04-11.
+ *
+ * The ByteBuf methods encrypt and decrypt in place where they can, and only use the scratch buffers of the codec,
+ * so writing or reading a frame doesn't allocate anything but the payload of the frames read.
+ * A codec serves a single connection, and is only used from its event loop.
  */
 public class FrameCodec {
+    private static final int HEADER_SIZE = 32;
+    private static final int MAC_SIZE = 16;
+    private static final int SCRATCH_SIZE = 4096;
+    private static final byte[] PADDING = new byte[16];
+
     private final StreamCipher enc;
     private final StreamCipher dec;
     private final KeccakDigest egressMac;
     private final KeccakDigest ingressMac;
-    private final byte[] mac;
+    // stateless AES encryption of the MAC updates
+    private final AESEngine macCipher;
     boolean isHeadRead;
     private int totalBodySize;
     private int contextId = -1;
     private int totalFrameSize = -1;
 
+    // the egress buffers are only used while writing a frame, the ingress ones while reading a frame
+    private final byte[] egressHeader = new byte[HEADER_SIZE];
+    private final byte[] egressMacBuffer = new byte[32];
+    private final byte[] egressScratch = new byte[SCRATCH_SIZE];
+    private final byte[] ingressHeader = new byte[HEADER_SIZE];
+    private final byte[] ingressMacBuffer = new byte[32];
+    private final byte[] ingressScratch = new byte[SCRATCH_SIZE];
+
     public FrameCodec(EncryptionHandshake.Secrets secrets) {
-        this.mac = secrets.mac;
         AESEngine encCipher = new AESEngine();
         enc = new SICBlockCipher(encCipher);
         enc.init(true, new ParametersWithIV(new KeyParameter(secrets.aes), new byte[encCipher.getBlockSize()]));
@@ -61,19 +78,16 @@ public class FrameCodec {
         dec.init(false, new ParametersWithIV(new KeyParameter(secrets.aes), new byte[decCipher.getBlockSize()]));
         egressMac = secrets.egressMac;
         ingressMac = secrets.ingressMac;
-    }
-
-    private AESEngine makeMacCipher() {
-        // Stateless AES encryption
-        AESEngine macc = new AESEngine();
-        macc.init(true, new KeyParameter(mac));
-        return macc;
+        macCipher = new AESEngine();
+        macCipher.init(true, new KeyParameter(secrets.mac));
     }
 
     public static class Frame {
         long type;
         int size;
         InputStream payload;
+        byte[] payloadBytes;
+        int payloadOffset;
 
         int totalFrameSize = -1;
         int contextId = -1;
@@ -86,9 +100,14 @@ public class FrameCodec {
         }
 
         public Frame(int type, byte[] payload) {
+            this(type, payload, 0, payload.length);
+        }
+
+        public Frame(long type, byte[] payload, int offset, int size) {
             this.type = type;
-            this.size = payload.length;
-            this.payload = new ByteArrayInputStream(payload);
+            this.size = size;
+            this.payloadBytes = payload;
+            this.payloadOffset = offset;
         }
 
         public int getSize() {
@@ -98,22 +117,90 @@ public class FrameCodec {
         public long getType() {return  type;}
 
         public InputStream getStream() {
+            if (payload == null) {
+                payload = new ByteArrayInputStream(payloadBytes, payloadOffset, size);
+            }
+
             return payload;
         }
+
+        /**
+         * @return the payload, without copying it when the frame holds it as a whole array
+         */
+        public byte[] getPayload() throws IOException {
+            if (payloadBytes != null && payloadOffset == 0 && payloadBytes.length == size) {
+                return payloadBytes;
+            }
+
+            byte[] result = new byte[size];
+            readPayload(result, 0);
+            return result;
+        }
+
+        /**
+         * Copies the payload to the given array
+         *
+         * @return the number of bytes copied
+         */
+        public int readPayload(byte[] dest, int pos) throws IOException {
+            if (payloadBytes != null) {
+                System.arraycopy(payloadBytes, payloadOffset, dest, pos, size);
+                return size;
+            }
+
+            int read = 0;
+
+            while (read < size) {
+                int n = payload.read(dest, pos + read, size - read);
+
+                if (n < 0) {
+                    break;
+                }
+
+                read += n;
+            }
+
+            return read;
+        }
+
         public boolean isChunked() {
             return contextId >= 0;
         }
 
     }
 
-    public void writeFrame(Frame frame, ByteBuf buf) throws IOException {
-        writeFrame(frame, new ByteBufOutputStream(buf));
+    /**
+     * @return the number of bytes the frame takes on the wire
+     */
+    public static int getFrameLength(Frame frame) {
+        int totalSize = frame.size + RLP.encodeInt((int) frame.type).length;
+        return HEADER_SIZE + totalSize + getPadding(totalSize) + MAC_SIZE;
+    }
+
+    private static int getPadding(int size) {
+        return (16 - (size % 16)) % 16;
     }
 
     public void writeFrame(Frame frame, OutputStream out) throws IOException {
-        byte[] headBuffer = new byte[32];
+        ByteBuf buf = Unpooled.buffer(getFrameLength(frame));
+
+        try {
+            writeFrame(frame, buf);
+            buf.readBytes(out, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+
+    public void writeFrame(Frame frame, ByteBuf out) throws IOException {
+        byte[] headBuffer = egressHeader;
         byte[] ptype = RLP.encodeInt((int) frame.type); // FIXME encodeLong
         int totalSize = frame.size + ptype.length;
+        int padding = getPadding(totalSize);
+
+        out.ensureWritable(HEADER_SIZE + totalSize + padding + MAC_SIZE);
+
+        Arrays.fill(headBuffer, (byte) 0);
         headBuffer[0] = (byte)(totalSize >> 16);
         headBuffer[1] = (byte)(totalSize >> 8);
         headBuffer[2] = (byte)(totalSize);
@@ -133,74 +220,175 @@ public class FrameCodec {
         enc.processBytes(headBuffer, 0, 16, headBuffer, 0);
 
         // Header MAC
-        updateMac(egressMac, headBuffer, 0, headBuffer, 16, true);
-
-        byte[] buff = new byte[256];
-        out.write(headBuffer);
-        enc.processBytes(ptype, 0, ptype.length, buff, 0);
-        out.write(buff, 0, ptype.length);
-        egressMac.update(buff, 0, ptype.length);
-        while (true) {
-            int n = frame.payload.read(buff);
-            if (n <= 0) {
-                break;
+        updateMac(egressMac, headBuffer, 0, headBuffer, 16, true, egressScratch);
+
+        out.writeBytes(headBuffer);
+        writeEncrypted(ptype, 0, ptype.length, out);
+
+        if (frame.payloadBytes != null) {
+            writeEncrypted(frame.payloadBytes, frame.payloadOffset, frame.size, out);
+        } else {
+            byte[] buff = new byte[SCRATCH_SIZE];
+
+            while (true) {
+                int n = frame.payload.read(buff);
+                if (n <= 0) {
+                    break;
+                }
+                writeEncrypted(buff, 0, n, out);
             }
-            enc.processBytes(buff, 0, n, buff, 0);
-            egressMac.update(buff, 0, n);
-            out.write(buff, 0, n);
-        }
-        int padding = 16 - (totalSize % 16);
-        byte[] pad = new byte[16];
-        if (padding < 16) {
-            enc.processBytes(pad, 0, padding, buff, 0);
-            egressMac.update(buff, 0, padding);
-            out.write(buff, 0, padding);
         }
 
+        writeEncrypted(PADDING, 0, padding, out);
+
         // Frame MAC
-        byte[] macBuffer = new byte[egressMac.getDigestSize()];
+        byte[] macBuffer = egressMacBuffer;
         doSum(egressMac, macBuffer); // fmacseed
-        updateMac(egressMac, macBuffer, 0, macBuffer, 0, true);
-        out.write(macBuffer, 0, 16);
+        updateMac(egressMac, macBuffer, 0, macBuffer, 0, true, egressScratch);
+        out.writeBytes(macBuffer, 0, MAC_SIZE);
     }
 
+    /**
+     * Encrypts the data at the end of the buffer, and adds the encrypted bytes to the egress MAC.
+     * Heap buffers are encrypted in place, direct buffers go through the scratch buffer.
+     */
+    private void writeEncrypted(byte[] data, int offset, int length, ByteBuf out) {
+        if (out.hasArray()) {
+            out.ensureWritable(length);
+
+            byte[] array = out.array();
+            int position = out.arrayOffset() + out.writerIndex();
+
+            enc.processBytes(data, offset, length, array, position);
+            egressMac.update(array, position, length);
+            out.writerIndex(out.writerIndex() + length);
+            return;
+        }
+
+        while (length > 0) {
+            int n = Math.min(length, egressScratch.length);
+            enc.processBytes(data, offset, n, egressScratch, 0);
+            egressMac.update(egressScratch, 0, n);
+            out.writeBytes(egressScratch, 0, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Reads the next frame of the buffer, or returns null, without consuming the bytes of the body,
+     * if the buffer doesn't have all of them yet.
+     */
     public List<Frame> readFrames(ByteBuf buf) throws IOException {
-        return readFrames(new ByteBufInputStream(buf));
+        if (!isHeadRead) {
+            if (buf.readableBytes() < HEADER_SIZE) {
+                return null;
+            }
+
+            buf.readBytes(ingressHeader);
+
+            if (!readHeader(ingressHeader)) {
+                return null;
+            }
+        }
+
+        int padding = getPadding(totalBodySize);
+
+        if (buf.readableBytes() < totalBodySize + padding + MAC_SIZE) {
+            return null;
+        }
+
+        if (totalBodySize == 0) {
+            throw new IOException("Empty frame");
+        }
+
+        // the frame type goes first, its RLP length is known after decrypting the first byte
+        readDecrypted(buf, ingressScratch, 0, 1);
+        int first = ingressScratch[0] & 0xff;
+        // a single byte, or a short item of up to 8 bytes
+        int typeLength = first < 0x80 ? 1 : 1 + first - 0x80;
+
+        if (typeLength > 9 || typeLength > totalBodySize) {
+            throw new IOException("Invalid frame type");
+        }
+
+        readDecrypted(buf, ingressScratch, 1, typeLength - 1);
+        long type = RLP.decodeInt(ingressScratch, 0); // FIXME long
+
+        int size = totalBodySize - typeLength;
+        byte[] payload = new byte[size];
+        readDecrypted(buf, payload, 0, size);
+        readDecrypted(buf, ingressScratch, 0, padding);
+
+        // Frame MAC
+        byte[] macBuffer = ingressMacBuffer;
+        doSum(ingressMac, macBuffer); // fmacseed
+        buf.readBytes(ingressHeader, 0, MAC_SIZE);
+        updateMac(ingressMac, macBuffer, 0, ingressHeader, 0, false, ingressScratch);
+
+        isHeadRead = false;
+        Frame frame = new Frame(type, payload, 0, size);
+        frame.contextId = contextId;
+        frame.totalFrameSize = totalFrameSize;
+        return Collections.singletonList(frame);
+    }
+
+    /**
+     * Reads length encrypted bytes from the buffer to dest, adding them to the ingress MAC, and decrypts them in place
+     */
+    private void readDecrypted(ByteBuf buf, byte[] dest, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        buf.readBytes(dest, offset, length);
+        ingressMac.update(dest, offset, length);
+        dec.processBytes(dest, offset, length, dest, offset);
+    }
+
+    /**
+     * Checks the MAC and decrypts the header, keeping the body size
+     *
+     * @return false if the header isn't valid
+     */
+    private boolean readHeader(byte[] headBuffer) throws IOException {
+        // Header MAC
+        updateMac(ingressMac, headBuffer, 0, headBuffer, 16, false, ingressScratch);
+
+        dec.processBytes(headBuffer, 0, 16, headBuffer, 0);
+        totalBodySize = headBuffer[0];
+        totalBodySize = (totalBodySize << 8) + (headBuffer[1] & 0xFF);
+        totalBodySize = (totalBodySize << 8) + (headBuffer[2] & 0xFF);
+
+        if (totalBodySize < 0) {
+            return false;
+        }
+
+        decode2OneItem(headBuffer, 3);
+
+        contextId = -1;
+        totalFrameSize = -1;
+        isHeadRead = true;
+
+        return true;
     }
 
     public List<Frame> readFrames(DataInput inp) throws IOException {
         if (!isHeadRead) {
-            byte[] headBuffer = new byte[32];
+            byte[] headBuffer = new byte[HEADER_SIZE];
             try {
                 inp.readFully(headBuffer);
             } catch (EOFException e) {
                 return null;
             }
 
-            // Header MAC
-            updateMac(ingressMac, headBuffer, 0, headBuffer, 16, false);
-
-            dec.processBytes(headBuffer, 0, 16, headBuffer, 0);
-            totalBodySize = headBuffer[0];
-            totalBodySize = (totalBodySize << 8) + (headBuffer[1] & 0xFF);
-            totalBodySize = (totalBodySize << 8) + (headBuffer[2] & 0xFF);
-
-            if (totalBodySize < 0) {
+            if (!readHeader(headBuffer)) {
                 return null;
             }
-
-            decode2OneItem(headBuffer, 3);
-
-            contextId = -1;
-            totalFrameSize = -1;
-            isHeadRead = true;
         }
 
-        int padding = 16 - (totalBodySize % 16);
-        if (padding == 16) {
-            padding = 0;
-        }
-        int macSize = 16;
+        int padding = getPadding(totalBodySize);
+        int macSize = MAC_SIZE;
         byte[] buffer = new byte[totalBodySize + padding + macSize];
         try {
             inp.readFully(buffer);
@@ -219,7 +407,7 @@ public class FrameCodec {
 
         // Frame MAC
         doSum(ingressMac, macBuffer); // fmacseed
-        updateMac(ingressMac, macBuffer, 0, buffer, frameSize, false);
+        updateMac(ingressMac, macBuffer, 0, buffer, frameSize, false, ingressScratch);
 
         isHeadRead = false;
         Frame frame = new Frame(type, size, payload);
@@ -228,33 +416,39 @@ public class FrameCodec {
         return Collections.singletonList(frame);
     }
 
-    private byte[] updateMac(KeccakDigest mac, byte[] seed, int offset, byte[] out, int outOffset, boolean egress) throws IOException {
-        byte[] aesBlock = new byte[mac.getDigestSize()];
-        doSum(mac, aesBlock);
-        makeMacCipher().processBlock(aesBlock, 0, aesBlock, 0);
+    /**
+     * Updates the MAC with the seed, and writes (egress) or checks (ingress) the first 16 bytes of the resulting digest.
+     * Uses the first 64 bytes of the scratch buffer.
+     */
+    private void updateMac(KeccakDigest mac, byte[] seed, int offset, byte[] out, int outOffset, boolean egress, byte[] scratch) throws IOException {
+        int digestSize = mac.getDigestSize();
+        doSum(mac, scratch);
+        macCipher.processBlock(scratch, 0, scratch, 0);
         // Note that although the mac digest size is 32 bytes, we only use 16 bytes in the computation
         int length = 16;
         for (int i = 0; i < length; i++) {
-            aesBlock[i] ^= seed[i + offset];
+            scratch[i] ^= seed[i + offset];
         }
-        mac.update(aesBlock, 0, length);
-        byte[] result = new byte[mac.getDigestSize()];
-        doSum(mac, result);
+        mac.update(scratch, 0, length);
+        doSum(mac, scratch, digestSize);
         if (egress) {
-            System.arraycopy(result, 0, out, outOffset, length);
+            System.arraycopy(scratch, digestSize, out, outOffset, length);
         } else {
             for (int i = 0; i < length; i++) {
-                if (out[i + outOffset] != result[i]) {
+                if (out[i + outOffset] != scratch[digestSize + i]) {
                     throw new IOException("MAC mismatch");
                 }
             }
         }
-        return result;
     }
 
     private void doSum(KeccakDigest mac, byte[] out) {
+        doSum(mac, out, 0);
+    }
+
+    private void doSum(KeccakDigest mac, byte[] out, int outOffset) {
         // doFinal without resetting the MAC by using clone of digest state
-        new KeccakDigest(mac).doFinal(out, 0);
+        new KeccakDigest(mac).doFinal(out, outOffset);
     }
 
 }
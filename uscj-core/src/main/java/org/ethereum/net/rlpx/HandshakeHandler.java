@@ -23,7 +23,6 @@ import co.usc.net.NodeID;
 import co.usc.scoring.EventType;
 import co.usc.scoring.PeerScoringManager;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.io.ByteStreams;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
@@ -196,7 +195,7 @@ public class HandshakeHandler extends ByteToMessageDecoder {
                     return;
                 }
                 Frame frame = frames.get(0);
-                byte[] payload = ByteStreams.toByteArray(frame.getStream());
+                byte[] payload = frame.getPayload();
                 if (frame.getType() == P2pMessageCodes.HELLO.asByte()) {
                     HelloMessage helloMessage = new HelloMessage(payload);
                     loggerNet.trace("From: \t{} \tRecv: \t{}", ctx.channel().remoteAddress(), helloMessage);
@@ -282,7 +281,7 @@ public class HandshakeHandler extends ByteToMessageDecoder {
                 Frame frame = frames.get(0);
 
                 Message message = new P2pMessageFactory().create((byte) frame.getType(),
-                        ByteStreams.toByteArray(frame.getStream()));
+                        frame.getPayload());
                 loggerNet.trace("From: \t{} \tRecv: \t{}", ctx.channel().remoteAddress(), message);
 
                 if (frame.getType() == P2pMessageCodes.DISCONNECT.asByte()) {
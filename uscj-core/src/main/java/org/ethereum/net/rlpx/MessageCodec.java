@@ -19,7 +19,6 @@
 
 package org.ethereum.net.rlpx;
 
-import com.google.common.io.ByteStreams;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageCodec;
 import org.apache.commons.lang3.tuple.Pair;
@@ -67,6 +66,10 @@ public class MessageCodec extends MessageToMessageCodec<Frame, Message> {
 
     private boolean supportChunkedFrames = true;
 
+    private final int compressionThreshold;
+    // set when the peer shares the snappy capability
+    private MessageCompression compression;
+
     Map<Integer, Pair<? extends List<Frame>, AtomicInteger>> incompleteFrames = new LRUMap<>(1, 16);
     // LRU avoids OOM on invalid peers
     AtomicInteger contextIdCounter = new AtomicInteger(1);
@@ -74,6 +77,7 @@ public class MessageCodec extends MessageToMessageCodec<Frame, Message> {
     public MessageCodec(EthereumListener ethereumListener, SystemProperties config) {
         this.ethereumListener = ethereumListener;
         this.maxFramePayloadSize = config.rlpxMaxFrameSize();
+        this.compressionThreshold = config.peerCompressionThreshold();
     }
 
     @Override
@@ -128,10 +132,22 @@ public class MessageCodec extends MessageToMessageCodec<Frame, Message> {
     private Message decodeMessage(List<Frame> frames) throws IOException {
         long frameType = frames.get(0).getType();
 
-        byte[] payload = new byte[frames.size() == 1 ? frames.get(0).getSize() : frames.get(0).totalFrameSize];
-        int pos = 0;
-        for (Frame frame : frames) {
-            pos += ByteStreams.read(frame.getStream(), payload, pos, frame.getSize());
+        byte[] payload;
+
+        if (frames.size() == 1) {
+            payload = frames.get(0).getPayload();
+        } else {
+            payload = new byte[frames.get(0).totalFrameSize];
+            int pos = 0;
+            for (Frame frame : frames) {
+                pos += frame.readPayload(payload, pos);
+            }
+        }
+
+        if (compression != null) {
+            int size = payload.length;
+            payload = compression.uncompress(payload);
+            channel.getNodeStatistics().rlpxInBytesSaved.addAndGet(payload.length - size);
         }
 
         if (loggerWire.isDebugEnabled()) {
@@ -155,29 +171,32 @@ public class MessageCodec extends MessageToMessageCodec<Frame, Message> {
 
         loggerNet.trace("To: \t{} \tSend: \t{}", channel, msg);
 
-        byte[] encoded = msg.getEncoded();
-
         if (loggerWire.isDebugEnabled()) {
-            loggerWire.debug("Send: Encoded: {} [{}]", getCode(msg.getCommand()), Hex.toHexString(encoded));
+            loggerWire.debug("Send: Encoded: {} [{}]", getCode(msg.getCommand()), Hex.toHexString(msg.getEncoded()));
         }
 
-        List<Frame> frames = splitMessageToFrames(msg);
+        byte[] bytes = msg.getEncoded();
+
+        if (compression != null) {
+            int size = bytes.length;
+            bytes = compression.compress(bytes);
+            channel.getNodeStatistics().rlpxOutBytesSaved.addAndGet(size - bytes.length);
+        }
+
+        List<Frame> frames = splitMessageToFrames(getCode(msg.getCommand()), bytes);
 
         out.addAll(frames);
 
         channel.getNodeStatistics().rlpxOutMessages.add();
     }
 
-    private List<Frame> splitMessageToFrames(Message msg) {
-        byte code = getCode(msg.getCommand());
+    private List<Frame> splitMessageToFrames(byte code, byte[] bytes) {
         List<Frame> ret = new ArrayList<>();
-        byte[] bytes = msg.getEncoded();
         int curPos = 0;
         while(curPos < bytes.length) {
             int newPos = min(curPos + maxFramePayloadSize, bytes.length);
-            byte[] frameBytes = curPos == 0 && newPos == bytes.length ? bytes :
-                    Arrays.copyOfRange(bytes, curPos, newPos);
-            ret.add(new Frame(code, frameBytes));
+            // the frames share the encoded message, FrameCodec encrypts them straight to the outbound buffer
+            ret.add(new Frame(code, bytes, curPos, newPos - curPos));
             curPos = newPos;
         }
 
@@ -243,6 +262,11 @@ public class MessageCodec extends MessageToMessageCodec<Frame, Message> {
 
     public void initMessageCodes(List<Capability> caps) {
         this.messageCodesResolver = new MessageCodesResolver(caps);
+
+        if (caps.contains(Capability.SNAPPY_CAPABILITY)) {
+            loggerNet.debug("Compressing messages with {}", channel);
+            this.compression = new MessageCompression(compressionThreshold);
+        }
     }
 
     public void setP2pMessageFactory(MessageFactory p2pMessageFactory) {
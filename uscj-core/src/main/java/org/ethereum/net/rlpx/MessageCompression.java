@@ -0,0 +1,112 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.net.rlpx;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compression of the messages exchanged with a peer that shares the snappy capability.
+ *
+ * Each payload starts with a byte telling whether the rest is Snappy compressed, so the messages
+ * under the threshold, or the ones that don't get any smaller, are sent as they are.
+ */
+public class MessageCompression {
+
+    public static final byte VERSION = 1;
+
+    // largest uncompressed message accepted from a peer
+    static final int MAX_UNCOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+    private static final byte RAW = 0;
+    private static final byte COMPRESSED = 1;
+
+    private static final AtomicLong compressedMessages = new AtomicLong();
+    private static final AtomicLong outBytesSaved = new AtomicLong();
+    private static final AtomicLong inBytesSaved = new AtomicLong();
+
+    private final int threshold;
+
+    public MessageCompression(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public byte[] compress(byte[] encoded) {
+        if (encoded.length >= threshold) {
+            byte[] compressed = Snappy.compress(encoded);
+
+            if (compressed.length < encoded.length) {
+                byte[] payload = new byte[compressed.length + 1];
+                payload[0] = COMPRESSED;
+                System.arraycopy(compressed, 0, payload, 1, compressed.length);
+
+                compressedMessages.incrementAndGet();
+                outBytesSaved.addAndGet(encoded.length - payload.length);
+
+                return payload;
+            }
+        }
+
+        byte[] payload = new byte[encoded.length + 1];
+        payload[0] = RAW;
+        System.arraycopy(encoded, 0, payload, 1, encoded.length);
+
+        outBytesSaved.decrementAndGet();
+
+        return payload;
+    }
+
+    public byte[] uncompress(byte[] payload) throws IOException {
+        if (payload.length == 0) {
+            throw new IOException("Empty compressed message");
+        }
+
+        switch (payload[0]) {
+            case RAW:
+                inBytesSaved.decrementAndGet();
+                return Arrays.copyOfRange(payload, 1, payload.length);
+            case COMPRESSED:
+                byte[] encoded = Snappy.uncompress(payload, 1, payload.length - 1, MAX_UNCOMPRESSED_SIZE);
+                inBytesSaved.addAndGet(encoded.length - payload.length);
+                return encoded;
+            default:
+                throw new IOException("Unknown message compression " + payload[0]);
+        }
+    }
+
+    public static long getCompressedMessagesCount() {
+        return compressedMessages.get();
+    }
+
+    /**
+     * Bytes not sent thanks to compression, to all the peers, net of the leading byte of each message
+     */
+    public static long getOutBytesSaved() {
+        return outBytesSaved.get();
+    }
+
+    /**
+     * Bytes not received thanks to compression, from all the peers, net of the leading byte of each message
+     */
+    public static long getInBytesSaved() {
+        return inBytesSaved.get();
+    }
+}
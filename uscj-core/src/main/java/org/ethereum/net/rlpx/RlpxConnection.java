@@ -59,14 +59,14 @@ public class RlpxConnection {
             }
             // TODO handle disconnect
             byte[] wire = new byte[frame.size];
-            frame.payload.read(wire);
+            frame.getStream().read(wire);
             System.out.println("packet " + Hex.toHexString(wire));
             handshakeMessage = HandshakeMessage.parse(wire);
             logger.info(" ===> " + handshakeMessage);
         } else {
             System.out.println("packet type " + frame.type);
             byte[] wire = new byte[frame.size];
-            frame.payload.read(wire);
+            frame.getStream().read(wire);
             System.out.println("packet " + Hex.toHexString(wire));
         }
     }
@@ -0,0 +1,298 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.net.rlpx;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of the Snappy block format (https://github.com/google/snappy/blob/master/format_description.txt),
+ * the compression negotiated by peers that share the {@link org.ethereum.net.client.Capability#SNAPPY} capability.
+ *
+ * Input is compressed in blocks of 64 KB with a greedy hash of 4-byte sequences, so every match is
+ * encoded with 1 or 2 byte offsets. Decompression accepts any valid Snappy stream.
+ */
+public final class Snappy {
+
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int MIN_TABLE_BITS = 8;
+    private static final int MAX_TABLE_BITS = 14;
+
+    private static final int LITERAL = 0;
+    private static final int COPY_1_BYTE_OFFSET = 1;
+    private static final int COPY_2_BYTE_OFFSET = 2;
+    private static final int COPY_4_BYTE_OFFSET = 3;
+
+    private Snappy() {
+    }
+
+    public static int maxCompressedLength(int length) {
+        return 32 + length + length / 6;
+    }
+
+    public static byte[] compress(byte[] input) {
+        byte[] output = new byte[maxCompressedLength(input.length)];
+        int outputPos = writeVarInt(output, 0, input.length);
+        int[] table = new int[1 << tableBits(Math.min(input.length, BLOCK_SIZE))];
+
+        for (int blockStart = 0; blockStart < input.length; blockStart += BLOCK_SIZE) {
+            int blockEnd = Math.min(blockStart + BLOCK_SIZE, input.length);
+            outputPos = compressBlock(input, blockStart, blockEnd, output, outputPos, table);
+        }
+
+        return Arrays.copyOf(output, outputPos);
+    }
+
+    /**
+     * Reads the uncompressed length stored at the beginning of a compressed stream
+     */
+    public static int uncompressedLength(byte[] input, int offset, int length) throws IOException {
+        int result = 0;
+        int end = offset + length;
+
+        for (int shift = 0, pos = offset; shift < 32; shift += 7, pos++) {
+            if (pos >= end) {
+                throw new IOException("Truncated Snappy length");
+            }
+
+            int b = input[pos] & 0xFF;
+            result |= (b & 0x7F) << shift;
+
+            if (b < 0x80) {
+                if (result < 0) {
+                    throw new IOException("Invalid Snappy length");
+                }
+
+                return result;
+            }
+        }
+
+        throw new IOException("Invalid Snappy length");
+    }
+
+    /**
+     * @param maxLength largest uncompressed length accepted, bounds the memory a peer can make us allocate
+     */
+    public static byte[] uncompress(byte[] input, int offset, int length, int maxLength) throws IOException {
+        int uncompressedLength = uncompressedLength(input, offset, length);
+
+        if (uncompressedLength > maxLength) {
+            throw new IOException("Snappy uncompressed length " + uncompressedLength + " exceeds " + maxLength);
+        }
+
+        byte[] output = new byte[uncompressedLength];
+        int end = offset + length;
+        int pos = offset;
+        int outputPos = 0;
+
+        while ((input[pos++] & 0x80) != 0) {
+            // skips the length
+        }
+
+        while (pos < end) {
+            int tag = input[pos++] & 0xFF;
+            int copyLength;
+            int copyOffset;
+
+            switch (tag & 3) {
+                case LITERAL:
+                    int literalLength = tag >>> 2;
+
+                    if (literalLength >= 60) {
+                        int lengthBytes = literalLength - 59;
+                        checkAvailable(pos, lengthBytes, end);
+                        literalLength = readLittleEndian(input, pos, lengthBytes);
+                        pos += lengthBytes;
+                    }
+
+                    literalLength++;
+
+                    if (literalLength <= 0 || literalLength > end - pos || literalLength > uncompressedLength - outputPos) {
+                        throw new IOException("Invalid Snappy literal");
+                    }
+
+                    System.arraycopy(input, pos, output, outputPos, literalLength);
+                    pos += literalLength;
+                    outputPos += literalLength;
+                    continue;
+                case COPY_1_BYTE_OFFSET:
+                    checkAvailable(pos, 1, end);
+                    copyLength = 4 + ((tag >>> 2) & 7);
+                    copyOffset = ((tag >>> 5) << 8) | (input[pos++] & 0xFF);
+                    break;
+                case COPY_2_BYTE_OFFSET:
+                    checkAvailable(pos, 2, end);
+                    copyLength = 1 + (tag >>> 2);
+                    copyOffset = readLittleEndian(input, pos, 2);
+                    pos += 2;
+                    break;
+                default:
+                    checkAvailable(pos, 4, end);
+                    copyLength = 1 + (tag >>> 2);
+                    copyOffset = readLittleEndian(input, pos, 4);
+                    pos += 4;
+                    break;
+            }
+
+            if (copyOffset <= 0 || copyOffset > outputPos || copyLength > uncompressedLength - outputPos) {
+                throw new IOException("Invalid Snappy copy");
+            }
+
+            if (copyOffset >= copyLength) {
+                System.arraycopy(output, outputPos - copyOffset, output, outputPos, copyLength);
+                outputPos += copyLength;
+            } else {
+                // overlapping copy, repeats the last copyOffset bytes
+                for (int k = 0; k < copyLength; k++, outputPos++) {
+                    output[outputPos] = output[outputPos - copyOffset];
+                }
+            }
+        }
+
+        if (outputPos != uncompressedLength) {
+            throw new IOException("Snappy stream ended after " + outputPos + " of " + uncompressedLength + " bytes");
+        }
+
+        return output;
+    }
+
+    private static int compressBlock(byte[] input, int start, int end, byte[] output, int outputPos, int[] table) {
+        int shift = 32 - Integer.numberOfTrailingZeros(table.length);
+        Arrays.fill(table, -1);
+
+        int literalStart = start;
+        int pos = start;
+        // incompressible data is skipped faster the longer it goes without a match
+        int skip = 32;
+
+        while (pos + 4 <= end) {
+            int value = readInt(input, pos);
+            int hash = (value * 0x1E35A7BD) >>> shift;
+            int candidate = table[hash];
+            table[hash] = pos;
+
+            if (candidate < start || readInt(input, candidate) != value) {
+                pos += skip++ >>> 5;
+                continue;
+            }
+
+            int matchLength = 4;
+
+            while (pos + matchLength < end && input[candidate + matchLength] == input[pos + matchLength]) {
+                matchLength++;
+            }
+
+            outputPos = writeLiteral(input, literalStart, pos - literalStart, output, outputPos);
+            outputPos = writeCopy(pos - candidate, matchLength, output, outputPos);
+
+            pos += matchLength;
+            literalStart = pos;
+            skip = 32;
+        }
+
+        return writeLiteral(input, literalStart, end - literalStart, output, outputPos);
+    }
+
+    private static int writeLiteral(byte[] input, int start, int length, byte[] output, int outputPos) {
+        if (length == 0) {
+            return outputPos;
+        }
+
+        int n = length - 1;
+
+        if (n < 60) {
+            output[outputPos++] = (byte) (n << 2 | LITERAL);
+        } else {
+            int lengthBytes = n < (1 << 8) ? 1 : n < (1 << 16) ? 2 : n < (1 << 24) ? 3 : 4;
+            output[outputPos++] = (byte) ((59 + lengthBytes) << 2 | LITERAL);
+
+            for (int k = 0; k < lengthBytes; k++) {
+                output[outputPos++] = (byte) (n >>> (8 * k));
+            }
+        }
+
+        System.arraycopy(input, start, output, outputPos, length);
+
+        return outputPos + length;
+    }
+
+    private static int writeCopy(int offset, int length, byte[] output, int outputPos) {
+        // 2 byte offset copies take up to 64 bytes, the remainder is always kept at 4 or more
+        while (length >= 68) {
+            outputPos = writeCopyWithOffset2(offset, 64, output, outputPos);
+            length -= 64;
+        }
+
+        if (length > 64) {
+            outputPos = writeCopyWithOffset2(offset, 60, output, outputPos);
+            length -= 60;
+        }
+
+        if (length < 12 && offset < 2048) {
+            output[outputPos++] = (byte) (COPY_1_BYTE_OFFSET | (length - 4) << 2 | (offset >>> 8) << 5);
+            output[outputPos++] = (byte) offset;
+            return outputPos;
+        }
+
+        return writeCopyWithOffset2(offset, length, output, outputPos);
+    }
+
+    private static int writeCopyWithOffset2(int offset, int length, byte[] output, int outputPos) {
+        output[outputPos++] = (byte) (COPY_2_BYTE_OFFSET | (length - 1) << 2);
+        output[outputPos++] = (byte) offset;
+        output[outputPos++] = (byte) (offset >>> 8);
+        return outputPos;
+    }
+
+    private static int tableBits(int length) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length - 1, 1));
+        return Math.max(MIN_TABLE_BITS, Math.min(MAX_TABLE_BITS, bits));
+    }
+
+    private static int writeVarInt(byte[] output, int outputPos, int value) {
+        while ((value & ~0x7F) != 0) {
+            output[outputPos++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+
+        output[outputPos++] = (byte) value;
+        return outputPos;
+    }
+
+    private static int readInt(byte[] input, int pos) {
+        return (input[pos] & 0xFF) | (input[pos + 1] & 0xFF) << 8 | (input[pos + 2] & 0xFF) << 16 | input[pos + 3] << 24;
+    }
+
+    private static int readLittleEndian(byte[] input, int pos, int bytes) {
+        int value = 0;
+
+        for (int k = 0; k < bytes; k++) {
+            value |= (input[pos + k] & 0xFF) << (8 * k);
+        }
+
+        return value;
+    }
+
+    private static void checkAvailable(int pos, int bytes, int end) throws IOException {
+        if (end - pos < bytes) {
+            throw new IOException("Truncated Snappy stream");
+        }
+    }
+}
@@ -100,8 +100,9 @@ public class Channel {
 
         byte[] payload = helloMessage.getEncoded();
 
-        ByteBuf byteBufMsg = ctx.alloc().buffer();
-        frameCodec.writeFrame(new FrameCodec.Frame(helloMessage.getCode(), payload), byteBufMsg);
+        FrameCodec.Frame frame = new FrameCodec.Frame(helloMessage.getCode(), payload);
+        ByteBuf byteBufMsg = ctx.alloc().ioBuffer(FrameCodec.getFrameLength(frame));
+        frameCodec.writeFrame(frame, byteBufMsg);
         ctx.writeAndFlush(byteBufMsg).sync();
 
         if (logger.isInfoEnabled()) {
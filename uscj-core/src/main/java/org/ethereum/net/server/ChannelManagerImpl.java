@@ -59,8 +59,18 @@ public class ChannelManagerImpl implements ChannelManager {
     // then we ban that peer IP on any connections for some time to protect from
     // too active peers
     private static final Duration INBOUND_CONNECTION_BAN_TIMEOUT = Duration.ofSeconds(10);
+    // a batch reaching this size is sent without waiting for the next flush
+    private static final int MAX_TRANSACTIONS_BATCH = 256;
+
     private final Object activePeersLock = new Object();
     private final Map<NodeID, Channel> activePeers;
+    // copy of the active peers, replaced under activePeersLock on every change,
+    // so the broadcasts iterate it without locking
+    private volatile List<Channel> activePeersView = Collections.emptyList();
+
+    // transactions waiting to be sent to each peer
+    private final Map<NodeID, TransactionsBatch> transactionsBatches = new ConcurrentHashMap<>();
+    private final int transactionsBatchInterval;
 
     // Using a concurrent list
     // (the add and remove methods copy an internal array,
@@ -88,11 +98,16 @@ public class ChannelManagerImpl implements ChannelManager {
         this.newPeers = new CopyOnWriteArrayList<>();
         this.maxConnectionsAllowed = config.maxConnectionsAllowed();
         this.networkCIDR = config.networkCIDR();
+        this.transactionsBatchInterval = config.peerTxBatchInterval();
     }
 
     @Override
     public void start() {
         mainWorker.scheduleWithFixedDelay(this::handleNewPeersAndDisconnections, 0, 1, TimeUnit.SECONDS);
+
+        if (transactionsBatchInterval > 0) {
+            mainWorker.scheduleWithFixedDelay(this::flushTransactionsBatches, transactionsBatchInterval, transactionsBatchInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
@@ -177,10 +192,15 @@ public class ChannelManagerImpl implements ChannelManager {
             syncPool.add(peer);
             synchronized (activePeersLock){
                 activePeers.put(peer.getNodeId(), peer);
+                updateActivePeersView();
             }
         }
     }
 
+    private void updateActivePeersView() {
+        activePeersView = Collections.unmodifiableList(new ArrayList<>(activePeers.values()));
+    }
+
     /**
      * broadcastBlock Propagates a block message across active peers
      *
@@ -195,24 +215,36 @@ public class ChannelManagerImpl implements ChannelManager {
         final BlockIdentifier bi = new BlockIdentifier(block.getHash().getBytes(), block.getNumber());
         final EthMessage newBlock = new UscMessage(new BlockMessage(block));
         final EthMessage newBlockHashes = new UscMessage(new NewBlockHashesMessage(Arrays.asList(bi)));
-        synchronized (activePeersLock){
-            // Get a randomized list with all the peers that don't have the block yet.
-            activePeers.values().forEach(c -> logger.trace("USC activePeers: {}", c));
-            List<Channel> peers = new ArrayList<>(activePeers.values());
-            Collections.shuffle(peers);
-
-            int sqrt = (int) Math.floor(Math.sqrt(peers.size()));
-            for (int i = 0; i < sqrt; i++) {
-                Channel peer = peers.get(i);
-                nodesIdsBroadcastedTo.add(peer.getNodeId());
-                logger.trace("USC propagate: {}", peer);
-                peer.sendMessage(newBlock);
-            }
-            for (int i = sqrt; i < peers.size(); i++) {
-                Channel peer = peers.get(i);
-                logger.trace("USC announce: {}", peer);
-                peer.sendMessage(newBlockHashes);
-            }
+
+        // Get a randomized list with all the peers that don't have the block yet.
+        List<Channel> peers = new ArrayList<>(activePeersView);
+
+        if (peers.isEmpty()) {
+            return nodesIdsBroadcastedTo;
+        }
+
+        peers.forEach(c -> logger.trace("USC activePeers: {}", c));
+        Collections.shuffle(peers);
+
+        int sqrt = (int) Math.floor(Math.sqrt(peers.size()));
+
+        // encoded once here, instead of by the thread of the first peer sending them
+        if (sqrt > 0) {
+            newBlock.getEncoded();
+        }
+
+        newBlockHashes.getEncoded();
+
+        for (int i = 0; i < sqrt; i++) {
+            Channel peer = peers.get(i);
+            nodesIdsBroadcastedTo.add(peer.getNodeId());
+            logger.trace("USC propagate: {}", peer);
+            peer.sendMessage(newBlock);
+        }
+        for (int i = sqrt; i < peers.size(); i++) {
+            Channel peer = peers.get(i);
+            logger.trace("USC announce: {}", peer);
+            peer.sendMessage(newBlockHashes);
         }
 
         return nodesIdsBroadcastedTo;
@@ -222,17 +254,18 @@ public class ChannelManagerImpl implements ChannelManager {
     public Set<NodeID> broadcastBlockHash(@Nonnull final List<BlockIdentifier> identifiers, final Set<NodeID> targets) {
         final Set<NodeID> nodesIdsBroadcastedTo = new HashSet<>();
         final EthMessage newBlockHash = new UscMessage(new NewBlockHashesMessage(identifiers));
+        final List<Channel> peers = activePeersView;
 
-        synchronized (activePeersLock){
-            activePeers.values().forEach(c -> logger.trace("USC activePeers: {}", c));
-
-            activePeers.values().stream()
-                    .filter(p -> targets.contains(p.getNodeId()))
-                    .forEach(peer -> {
-                        logger.trace("USC announce hash: {}", peer);
-                        peer.sendMessage(newBlockHash);
-                    });
-        }
+        peers.forEach(c -> logger.trace("USC activePeers: {}", c));
+
+        newBlockHash.getEncoded();
+
+        peers.stream()
+                .filter(p -> targets.contains(p.getNodeId()))
+                .forEach(peer -> {
+                    logger.trace("USC announce hash: {}", peer);
+                    peer.sendMessage(newBlockHash);
+                });
 
         return nodesIdsBroadcastedTo;
     }
@@ -241,6 +274,9 @@ public class ChannelManagerImpl implements ChannelManager {
      * broadcastTransaction Propagates a transaction message across active peers with exclusion of
      * the peers with an id belonging to the skip set.
      *
+     * The transaction is added to the batch of each peer, sent every peer.txBatchInterval milliseconds
+     * in a single message, or as soon as it is full.
+     *
      * @param transaction new Transaction to be sent
      * @param skip  the set of peers to avoid sending the message.
      * @return a set containing the ids of the peers that received the transaction.
@@ -248,37 +284,79 @@ public class ChannelManagerImpl implements ChannelManager {
     @Nonnull
     public Set<NodeID> broadcastTransaction(@Nonnull final Transaction transaction, final Set<NodeID> skip) {
         Metrics.broadcastTransaction(transaction);
-        List<Transaction> transactions = Collections.singletonList(transaction);
 
         final Set<NodeID> nodesIdsBroadcastedTo = new HashSet<>();
-        final EthMessage newTransactions = new UscMessage(new TransactionsMessage(transactions));
 
-        activePeers.values().stream()
-            .filter(p -> !skip.contains(p.getNodeId()))
-            .forEach(peer -> {
-                peer.sendMessage(newTransactions);
-                nodesIdsBroadcastedTo.add(peer.getNodeId());
-            });
+        // encoded once, it is reused by the message of every peer
+        transaction.getEncoded();
+
+        for (Channel peer : activePeersView) {
+            NodeID nodeID = peer.getNodeId();
+
+            if (skip != null && skip.contains(nodeID)) {
+                continue;
+            }
+
+            if (transactionsBatchInterval > 0) {
+                TransactionsBatch batch = transactionsBatches.computeIfAbsent(nodeID, k -> new TransactionsBatch());
+
+                if (batch.add(transaction) >= MAX_TRANSACTIONS_BATCH) {
+                    sendTransactions(peer, batch.drain());
+                }
+            } else {
+                sendTransactions(peer, Collections.singletonList(transaction));
+            }
+
+            nodesIdsBroadcastedTo.add(nodeID);
+        }
 
         return nodesIdsBroadcastedTo;
     }
 
+    private void flushTransactionsBatches() {
+        try {
+            for (Map.Entry<NodeID, TransactionsBatch> entry : transactionsBatches.entrySet()) {
+                Channel peer = activePeers.get(entry.getKey());
+
+                if (peer == null) {
+                    transactionsBatches.remove(entry.getKey());
+                    continue;
+                }
+
+                sendTransactions(peer, entry.getValue().drain());
+            }
+        } catch (Exception e) {
+            logger.error("Error sending transactions", e);
+        }
+    }
+
+    private static void sendTransactions(Channel peer, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        peer.sendMessage(new UscMessage(new TransactionsMessage(transactions)));
+    }
+
     @Override
     public int broadcastStatus(Status status) {
         final EthMessage message = new UscMessage(new StatusMessage(status));
-        synchronized (activePeersLock){
-            if (activePeers.isEmpty()) {
-                return 0;
-            }
+        final List<Channel> peers = activePeersView;
 
-            int numberOfPeersToSendStatusTo = getNumberOfPeersToSendStatusTo(activePeers.size());
-            List<Channel> shuffledPeers = new ArrayList<>(activePeers.values());
-            Collections.shuffle(shuffledPeers);
-            shuffledPeers.stream()
-                    .limit(numberOfPeersToSendStatusTo)
-                    .forEach(c -> c.sendMessage(message));
-            return numberOfPeersToSendStatusTo;
+        if (peers.isEmpty()) {
+            return 0;
         }
+
+        int numberOfPeersToSendStatusTo = getNumberOfPeersToSendStatusTo(peers.size());
+        List<Channel> shuffledPeers = new ArrayList<>(peers);
+        Collections.shuffle(shuffledPeers);
+
+        message.getEncoded();
+
+        shuffledPeers.stream()
+                .limit(numberOfPeersToSendStatusTo)
+                .forEach(c -> c.sendMessage(message));
+        return numberOfPeersToSendStatusTo;
     }
 
     @VisibleForTesting
@@ -299,6 +377,11 @@ public class ChannelManagerImpl implements ChannelManager {
         syncPool.onDisconnect(channel);
         synchronized (activePeersLock){
             activePeers.values().remove(channel);
+            updateActivePeersView();
+        }
+
+        if (channel.getNodeId() != null && !activePeers.containsKey(channel.getNodeId())) {
+            transactionsBatches.remove(channel.getNodeId());
         }
         if(newPeers.remove(channel)) {
             logger.info("Peer removed from active peers: {}", channel.getPeerId());
@@ -306,14 +389,11 @@ public class ChannelManagerImpl implements ChannelManager {
     }
 
     public void onSyncDone(boolean done) {
-        activePeers.values().forEach(channel -> channel.onSyncDone(done));
+        activePeersView.forEach(channel -> channel.onSyncDone(done));
     }
 
     public Collection<Channel> getActivePeers() {
-        // from the docs: it is imperative to synchronize when iterating
-        synchronized (activePeersLock){
-            return new ArrayList<>(activePeers.values());
-        }
+        return new ArrayList<>(activePeersView);
     }
 
     @Override
@@ -328,14 +408,30 @@ public class ChannelManagerImpl implements ChannelManager {
     }
 
     public boolean isAddressBlockAvailable(InetAddress inetAddress) {
-        synchronized (activePeersLock) {
-            //TODO(lsebrie): save block address in a data structure and keep updated on each channel add/remove
-            //TODO(lsebrie): check if we need to use a different networkCIDR for ipv6
-            return activePeers.values().stream()
-                    .map(ch -> new InetAddressBlock(ch.getInetSocketAddress().getAddress(), networkCIDR))
-                    .filter(block -> block.contains(inetAddress))
-                    .count() < maxConnectionsAllowed;
-        }
+        //TODO(lsebrie): save block address in a data structure and keep updated on each channel add/remove
+        //TODO(lsebrie): check if we need to use a different networkCIDR for ipv6
+        return activePeersView.stream()
+                .map(ch -> new InetAddressBlock(ch.getInetSocketAddress().getAddress(), networkCIDR))
+                .filter(block -> block.contains(inetAddress))
+                .count() < maxConnectionsAllowed;
     }
 
+    private static class TransactionsBatch {
+        private List<Transaction> transactions = new ArrayList<>();
+
+        synchronized int add(Transaction transaction) {
+            transactions.add(transaction);
+            return transactions.size();
+        }
+
+        synchronized List<Transaction> drain() {
+            if (transactions.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<Transaction> result = transactions;
+            transactions = new ArrayList<>();
+            return result;
+        }
+    }
 }
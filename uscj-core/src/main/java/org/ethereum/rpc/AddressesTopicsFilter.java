@@ -26,8 +26,11 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.LogInfo;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+import static org.ethereum.rpc.TypeConverter.stringHexToByteArray;
+
 public class AddressesTopicsFilter {
     private List<Topic[]> topics = new ArrayList<>();  //  [[addr1, addr2], null, [A, B], [C]]
     private UscAddress[] addresses = new UscAddress[0];
@@ -43,6 +46,64 @@ public class AddressesTopicsFilter {
         initBlooms();
     }
 
+    public static AddressesTopicsFilter fromFilterRequest(Web3.FilterRequest fr) {
+        UscAddress[] addresses;
+
+        // TODO get array of topics, with topics, and array of topics inside (the OR operation over topics)
+        Topic[] topics = null;
+
+        if (fr.address instanceof String) {
+            addresses = new UscAddress[] { new UscAddress(stringHexToByteArray((String) fr.address)) };
+        } else if (fr.address instanceof Collection<?>) {
+            Collection<?> iterable = (Collection<?>)fr.address;
+
+            addresses = iterable.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .map(TypeConverter::stringHexToByteArray)
+                    .map(UscAddress::new)
+                    .toArray(UscAddress[]::new);
+        }
+        else {
+            addresses = new UscAddress[0];
+        }
+
+        if (fr.topics != null) {
+            for (Object topic : fr.topics) {
+                if (topic == null) {
+                    topics = new Topic[0];
+                } else if (topic instanceof String) {
+                    topics = new Topic[] { new Topic((String) topic) };
+                } else if (topic instanceof Collection<?>) {
+                    Collection<?> iterable = (Collection<?>)topic;
+
+                    topics = iterable.stream()
+                            .filter(String.class::isInstance)
+                            .map(String.class::cast)
+                            .map(TypeConverter::stringHexToByteArray)
+                            .map(Topic::new)
+                            .toArray(Topic[]::new);
+                }
+            }
+        }
+        else {
+            topics = null;
+        }
+
+        return new AddressesTopicsFilter(addresses, topics);
+    }
+
+    UscAddress[] getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * @return the topics accepted at the position, null or empty when any topic matches
+     */
+    Topic[] getTopics(int position) {
+        return position < topics.size() ? topics.get(position) : null;
+    }
+
     private void initBlooms() {
         if (filterBlooms != null) {
             return;
@@ -44,11 +44,14 @@ public class FilterManager {
     @GuardedBy("filterLock")
     private Map<Integer, Filter> installedFilters = new HashMap<>();
 
+    // the log filters following new blocks, by address and topic
+    private final LogFilterIndex logFilterIndex = new LogFilterIndex();
+
     public FilterManager(Ethereum eth) {
         eth.addListener(new EthereumListenerAdapter() {
             @Override
             public void onBlock(Block block, List<TransactionReceipt> receipts) {
-                newBlockReceived(block);
+                newBlockReceived(block, receipts);
             }
 
             @Override
@@ -65,13 +68,26 @@ public class FilterManager {
             int id = filterCounter.getAndIncrement();
             installedFilters.put(id, filter);
 
+            if (filter instanceof LogFilter && ((LogFilter) filter).followsNewBlocks()) {
+                LogFilter logFilter = (LogFilter) filter;
+                logFilterIndex.add(logFilter.getAddressesTopicsFilter(), logFilter);
+            }
+
             return id;
         }
     }
 
     public boolean removeFilter(int id) {
         synchronized (filterLock) {
-            return installedFilters.remove(id) != null;
+            Filter filter = installedFilters.remove(id);
+
+            if (filter == null) {
+                return false;
+            }
+
+            removeFromIndex(filter);
+
+            return true;
         }
     }
 
@@ -94,13 +110,16 @@ public class FilterManager {
         }
     }
 
-    public void newBlockReceived(Block block) {
+    public void newBlockReceived(Block block, List<TransactionReceipt> receipts) {
         synchronized (filterLock) {
             filtersCleanup();
 
             for (Filter filter : installedFilters.values()) {
                 filter.newBlockReceived(block);
             }
+
+            // the receipts come with the block, no filter reads them again
+            logFilterIndex.onBlock(block, receipts);
         }
     }
 
@@ -134,9 +153,15 @@ public class FilterManager {
         }
 
         for (Integer id : toremove) {
-            installedFilters.remove(id);
+            removeFromIndex(installedFilters.remove(id));
         }
 
         latestFilterCleanup = now;
     }
+
+    private void removeFromIndex(Filter filter) {
+        if (filter instanceof LogFilter) {
+            logFilterIndex.remove((LogFilter) filter);
+        }
+    }
 }
@@ -18,19 +18,14 @@
 
 package org.ethereum.rpc;
 
-import co.usc.core.UscAddress;
 import org.ethereum.core.*;
 import org.ethereum.db.TransactionInfo;
 import org.ethereum.vm.LogInfo;
 
-import java.util.Collection;
-
-import static org.ethereum.rpc.TypeConverter.stringHexToByteArray;
-
 /**
  * Created by ajlopez on 17/01/2018.
  */
-public class LogFilter extends Filter {
+public class LogFilter extends Filter implements LogFilterIndex.LogMatchListener {
     class LogFilterEvent extends FilterEvent {
         private final LogFilterElement el;
 
@@ -56,7 +51,8 @@ public class LogFilter extends Filter {
         this.toLatestBlock = toLatestBlock;
     }
 
-    void onLogMatch(LogInfo logInfo, Block b, int txIndex, Transaction tx, int logIdx) {
+    @Override
+    public void onLogMatch(LogInfo logInfo, Block b, int txIndex, Transaction tx, int logIdx) {
         add(new LogFilterEvent(new LogFilterElement(logInfo, b, txIndex, tx, logIdx)));
     }
 
@@ -86,14 +82,22 @@ public class LogFilter extends Filter {
         }
     }
 
+    AddressesTopicsFilter getAddressesTopicsFilter() {
+        return addressesTopicsFilter;
+    }
+
+    /**
+     * Whether the logs of the new blocks are added to this filter, FilterManager routes them
+     * through its LogFilterIndex
+     */
+    boolean followsNewBlocks() {
+        return this.fromLatestBlock || this.toLatestBlock;
+    }
+
     @Override
     public void newBlockReceived(Block b) {
         if (this.fromLatestBlock) {
             this.clearEvents();
-            onBlock(b);
-        }
-        else if (this.toLatestBlock) {
-            onBlock(b);
         }
     }
 
@@ -103,50 +107,7 @@ public class LogFilter extends Filter {
     }
 
     public static LogFilter fromFilterRequest(Web3.FilterRequest fr, Blockchain blockchain) throws Exception {
-        UscAddress[] addresses;
-
-        // TODO get array of topics, with topics, and array of topics inside (the OR operation over topics)
-        Topic[] topics = null;
-
-        if (fr.address instanceof String) {
-            addresses = new UscAddress[] { new UscAddress(stringHexToByteArray((String) fr.address)) };
-        } else if (fr.address instanceof Collection<?>) {
-            Collection<?> iterable = (Collection<?>)fr.address;
-
-            addresses = iterable.stream()
-                    .filter(String.class::isInstance)
-                    .map(String.class::cast)
-                    .map(TypeConverter::stringHexToByteArray)
-                    .map(UscAddress::new)
-                    .toArray(UscAddress[]::new);
-        }
-        else {
-            addresses = new UscAddress[0];
-        }
-
-        if (fr.topics != null) {
-            for (Object topic : fr.topics) {
-                if (topic == null) {
-                    topics = new Topic[0];
-                } else if (topic instanceof String) {
-                    topics = new Topic[] { new Topic((String) topic) };
-                } else if (topic instanceof Collection<?>) {
-                    Collection<?> iterable = (Collection<?>)topic;
-
-                    topics = iterable.stream()
-                            .filter(String.class::isInstance)
-                            .map(String.class::cast)
-                            .map(TypeConverter::stringHexToByteArray)
-                            .map(Topic::new)
-                            .toArray(Topic[]::new);
-                }
-            }
-        }
-        else {
-            topics = null;
-        }
-
-        AddressesTopicsFilter addressesTopicsFilter = new AddressesTopicsFilter(addresses, topics);
+        AddressesTopicsFilter addressesTopicsFilter = AddressesTopicsFilter.fromFilterRequest(fr);
 
         // TODO review pending transaction processing
         // when fromBlock and/or toBlock are "pending"
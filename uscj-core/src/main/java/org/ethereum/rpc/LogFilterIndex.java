@@ -0,0 +1,154 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.rpc;
+
+import co.usc.core.UscAddress;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+
+import java.util.*;
+
+/**
+ * Routes the logs of a block to the filters that match them.
+ *
+ * The logs are taken from the receipts that come with the block, and the candidate filters of each log
+ * are looked up by its address, or by its first topic for the filters without addresses, so the cost of
+ * a block grows with its logs and not with the number of installed filters.
+ */
+public class LogFilterIndex {
+
+    public interface LogMatchListener {
+        void onLogMatch(LogInfo logInfo, Block block, int txIndex, Transaction tx, int logIndex);
+    }
+
+    private final Map<LogMatchListener, Entry> entries = new IdentityHashMap<>();
+    private final Map<UscAddress, List<Entry>> byAddress = new HashMap<>();
+    private final Map<DataWord, List<Entry>> byFirstTopic = new HashMap<>();
+    // filters without addresses nor a first topic, they are checked against every log
+    private final List<Entry> unindexed = new ArrayList<>();
+
+    public synchronized void add(AddressesTopicsFilter filter, LogMatchListener listener) {
+        remove(listener);
+
+        Entry entry = new Entry(filter, listener);
+        entries.put(listener, entry);
+
+        UscAddress[] addresses = filter.getAddresses();
+        Topic[] firstTopics = filter.getTopics(0);
+
+        if (addresses.length > 0) {
+            for (UscAddress address : new HashSet<>(Arrays.asList(addresses))) {
+                byAddress.computeIfAbsent(address, k -> new ArrayList<>()).add(entry);
+            }
+        } else if (firstTopics != null && firstTopics.length > 0) {
+            for (Topic topic : new HashSet<>(Arrays.asList(firstTopics))) {
+                byFirstTopic.computeIfAbsent(new DataWord(topic.getBytes()), k -> new ArrayList<>()).add(entry);
+            }
+        } else {
+            unindexed.add(entry);
+        }
+    }
+
+    public synchronized void remove(LogMatchListener listener) {
+        Entry entry = entries.remove(listener);
+
+        if (entry == null) {
+            return;
+        }
+
+        UscAddress[] addresses = entry.filter.getAddresses();
+        Topic[] firstTopics = entry.filter.getTopics(0);
+
+        if (addresses.length > 0) {
+            for (UscAddress address : addresses) {
+                removeFrom(byAddress, address, entry);
+            }
+        } else if (firstTopics != null && firstTopics.length > 0) {
+            for (Topic topic : firstTopics) {
+                removeFrom(byFirstTopic, new DataWord(topic.getBytes()), entry);
+            }
+        } else {
+            unindexed.remove(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param receipts the receipts of the block transactions, in order
+     */
+    public synchronized void onBlock(Block block, List<TransactionReceipt> receipts) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        for (int txIndex = 0; txIndex < receipts.size(); txIndex++) {
+            TransactionReceipt receipt = receipts.get(txIndex);
+            List<LogInfo> logs = receipt.getLogInfoList();
+
+            for (int logIndex = 0; logIndex < logs.size(); logIndex++) {
+                LogInfo logInfo = logs.get(logIndex);
+
+                dispatch(byAddress.get(new UscAddress(logInfo.getAddress())), logInfo, block, txIndex, receipt.getTransaction(), logIndex);
+
+                if (!logInfo.getTopics().isEmpty()) {
+                    dispatch(byFirstTopic.get(logInfo.getTopics().get(0)), logInfo, block, txIndex, receipt.getTransaction(), logIndex);
+                }
+
+                dispatch(unindexed, logInfo, block, txIndex, receipt.getTransaction(), logIndex);
+            }
+        }
+    }
+
+    private static void dispatch(List<Entry> candidates, LogInfo logInfo, Block block, int txIndex, Transaction tx, int logIndex) {
+        if (candidates == null) {
+            return;
+        }
+
+        for (Entry entry : candidates) {
+            if (entry.filter.matchesExactly(logInfo)) {
+                entry.listener.onLogMatch(logInfo, block, txIndex, tx, logIndex);
+            }
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, List<Entry>> index, K key, Entry entry) {
+        List<Entry> list = index.get(key);
+
+        if (list != null && list.remove(entry) && list.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static class Entry {
+        private final AddressesTopicsFilter filter;
+        private final LogMatchListener listener;
+
+        Entry(AddressesTopicsFilter filter, LogMatchListener listener) {
+            this.filter = filter;
+            this.listener = listener;
+        }
+    }
+}
@@ -986,7 +986,7 @@ public class Web3Impl implements Web3 {
         } else {
             Block block = getByJsonBlockId(id);
             if (block != null) {
-                return this.repository.getSnapshotTo(block.getStateRoot());
+                return this.repository.getReadOnlySnapshotTo(block.getStateRoot());
             } else {
                 return null;
             }
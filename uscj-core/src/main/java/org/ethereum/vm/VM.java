@@ -1981,16 +1981,16 @@ public class VM {
 
             initDebugData();
             this.steps(program,Long.MAX_VALUE);
-
-            if (vmHook != null) {
-                vmHook.stopPlay(program);
-            }
-
         } catch (RuntimeException e) {
             program.setRuntimeFailure(e);
         } catch (StackOverflowError soe){
             logger.error("\n !!! StackOverflowError: update your java run command with -Xss32M !!!\n", soe);
             System.exit(-1);
+        } finally {
+            // also on failed executions, so hooks can pair every start with its stop
+            if (vmHook != null) {
+                vmHook.stopPlay(program);
+            }
         }
     }
 
@@ -0,0 +1,289 @@
+/*
+ * This file is part of USC
+ * Copyright (C) 2016 - 2018 USC developer team.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.ethereum.vm;
+
+import co.usc.core.UscAddress;
+import org.ethereum.vm.program.Program;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * VM hook that measures the time and gas of every executed opcode, aggregated by opcode and by contract.
+ *
+ * An opcode runs from its step to the next step (or the end) of the same program. The time and gas of the
+ * programs called from an opcode (CALL, CREATE...) are taken out of it, and counted in the called programs,
+ * so each opcode and contract only accounts for its own work. The opcode that makes a program fail is not
+ * counted, because it is charged all the remaining gas.
+ *
+ * Each thread running programs keeps its own call stack, the totals are shared.
+ */
+public class VMProfiler implements VMHook {
+    private static final Logger logger = LoggerFactory.getLogger("vmprofiler");
+
+    private static final int MAX_CONTRACTS = 10000;
+
+    private final AtomicLongArray opCounts = new AtomicLongArray(256);
+    private final AtomicLongArray opNanos = new AtomicLongArray(256);
+    private final AtomicLongArray opGas = new AtomicLongArray(256);
+
+    private final Map<UscAddress, Profile> contracts = new ConcurrentHashMap<>();
+    private final AtomicLong untrackedContracts = new AtomicLong();
+
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void startPlay(Program program) {
+        frames.get().push(new Frame(program, System.nanoTime(), program.getRemainingGas()));
+    }
+
+    @Override
+    public void step(Program program, OpCode opcode) {
+        Frame frame = frames.get().peek();
+
+        if (frame == null || frame.program != program) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long gas = program.getRemainingGas();
+
+        closeOpCode(frame, now, gas);
+
+        frame.opcode = opcode;
+        frame.opStart = now;
+        frame.opGas = gas;
+    }
+
+    @Override
+    public void stopPlay(Program program) {
+        Deque<Frame> stack = frames.get();
+        Frame frame = stack.peek();
+
+        if (frame == null || frame.program != program) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long gas = program.getRemainingGas();
+
+        if (program.getResult().getException() == null) {
+            closeOpCode(frame, now, gas);
+        }
+
+        stack.pop();
+
+        Frame parent = stack.peek();
+
+        if (parent != null) {
+            parent.childNanos += now - frame.started;
+            parent.childGas += frame.startGas - gas;
+        }
+
+        Profile profile = getContractProfile(new UscAddress(program.getOwnerAddress()));
+
+        if (profile != null) {
+            profile.add(frame.steps, frame.nanos, frame.gas);
+        }
+    }
+
+    private void closeOpCode(Frame frame, long now, long gas) {
+        if (frame.opcode == null) {
+            return;
+        }
+
+        long nanos = now - frame.opStart - frame.childNanos;
+        long gasUsed = frame.opGas - gas - frame.childGas;
+        int index = frame.opcode.val() & 0xff;
+
+        opCounts.incrementAndGet(index);
+        opNanos.addAndGet(index, nanos);
+        opGas.addAndGet(index, gasUsed);
+
+        frame.steps++;
+        frame.nanos += nanos;
+        frame.gas += gasUsed;
+
+        frame.opcode = null;
+        frame.childNanos = 0;
+        frame.childGas = 0;
+    }
+
+    private Profile getContractProfile(UscAddress address) {
+        Profile profile = contracts.get(address);
+
+        if (profile != null) {
+            return profile;
+        }
+
+        if (contracts.size() >= MAX_CONTRACTS) {
+            untrackedContracts.incrementAndGet();
+            return null;
+        }
+
+        return contracts.computeIfAbsent(address, k -> new Profile(k.toString()));
+    }
+
+    /**
+     * @return the executed opcodes, most time consuming per unit of gas first
+     */
+    public List<Profile> getOpCodeProfiles() {
+        List<Profile> profiles = new ArrayList<>();
+
+        for (OpCode opcode : OpCode.values()) {
+            int index = opcode.val() & 0xff;
+            long count = opCounts.get(index);
+
+            if (count > 0) {
+                Profile profile = new Profile(opcode.name());
+                profile.add(count, opNanos.get(index), opGas.get(index));
+                profiles.add(profile);
+            }
+        }
+
+        profiles.sort(Comparator.comparingDouble(Profile::getNanosPerGas).reversed());
+
+        return profiles;
+    }
+
+    /**
+     * @return the contracts that took the most execution time, first
+     */
+    public List<Profile> getTopContracts(int count) {
+        return contracts.values().stream()
+                .sorted(Comparator.comparingLong(Profile::getNanos).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        for (int k = 0; k < 256; k++) {
+            opCounts.set(k, 0);
+            opNanos.set(k, 0);
+            opGas.set(k, 0);
+        }
+
+        contracts.clear();
+        untrackedContracts.set(0);
+    }
+
+    public void logReport(int topContracts) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder("VM profile\n");
+        builder.append(String.format("%-16s %14s %14s %12s %10s%n", "opcode", "count", "ns/op", "gas/op", "ns/gas"));
+
+        for (Profile profile : getOpCodeProfiles()) {
+            builder.append(String.format("%-16s %14d %14.1f %12.1f %10.2f%n", profile.getName(), profile.getCount(),
+                    profile.getNanosPerCount(), profile.getGasPerCount(), profile.getNanosPerGas()));
+        }
+
+        builder.append(String.format("%-42s %14s %14s %12s %10s%n", "contract", "steps", "ms", "gas", "ns/gas"));
+
+        for (Profile profile : getTopContracts(topContracts)) {
+            builder.append(String.format("%-42s %14d %14d %12d %10.2f%n", profile.getName(), profile.getCount(),
+                    profile.getNanos() / 1000000, profile.getGas(), profile.getNanosPerGas()));
+        }
+
+        if (untrackedContracts.get() > 0) {
+            builder.append(String.format("%d executions of untracked contracts%n", untrackedContracts.get()));
+        }
+
+        logger.info(builder.toString());
+    }
+
+    public static class Profile {
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong gas = new AtomicLong();
+
+        Profile(String name) {
+            this.name = name;
+        }
+
+        void add(long count, long nanos, long gas) {
+            this.count.addAndGet(count);
+            this.nanos.addAndGet(nanos);
+            this.gas.addAndGet(gas);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        public long getGas() {
+            return gas.get();
+        }
+
+        public double getNanosPerCount() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getNanos() / n;
+        }
+
+        public double getGasPerCount() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getGas() / n;
+        }
+
+        // zero gas opcodes (STOP, RETURN...) go first
+        public double getNanosPerGas() {
+            long g = getGas();
+            return g <= 0 ? Double.MAX_VALUE : (double) getNanos() / g;
+        }
+    }
+
+    private static class Frame {
+        private final Program program;
+        private final long started;
+        private final long startGas;
+
+        private OpCode opcode;
+        private long opStart;
+        private long opGas;
+        private long childNanos;
+        private long childGas;
+
+        private long steps;
+        private long nanos;
+        private long gas;
+
+        Frame(Program program, long started, long startGas) {
+            this.program = program;
+            this.started = started;
+            this.startGas = startGas;
+        }
+    }
+}
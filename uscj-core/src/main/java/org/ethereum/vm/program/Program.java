@@ -635,7 +635,7 @@ public class Program {
             getStorage().increaseNonce(senderAddress);
         }
 
-        Repository track = getStorage().startTracking();
+        Repository track = getStorage().startNestedTracking();
 
         //In case of hashing collisions, check for any balance before createAccount()
         if (track.isExist(newAddress)) {
@@ -819,12 +819,13 @@ public class Program {
                     contextAddress, msg.getOutDataOffs().longValue(), msg.getOutDataSize().longValue());
         }
 
-        Repository track = getStorage().startTracking();
+        Repository track = getStorage().startNestedTracking();
 
         // 2.1 PERFORM THE VALUE (endowment) PART
         Coin endowment = new Coin(msg.getEndowment().getData());
         Coin senderBalance = track.getBalance(senderAddress);
         if (isNotCovers(senderBalance, endowment)) {
+            track.rollback();
             stackPushZero();
             refundGas(msg.getGas().longValue(), "refund gas from message call");
             return;
@@ -843,6 +844,8 @@ public class Program {
             getResult().addCallCreate(data, contextAddress.getBytes(),
                         msg.getGas().longValueSafe(),
                     msg.getEndowment().getNoLeadZeroesData());
+            // the call is only recorded, its frame must not stay open
+            track.rollback();
             return;
         }
 
@@ -1537,7 +1540,7 @@ public class Program {
             return;
         }
 
-        Repository track = getStorage().startTracking();
+        Repository track = getStorage().startNestedTracking();
 
         UscAddress senderAddress = new UscAddress(getOwnerAddress());
         UscAddress codeAddress = new UscAddress(msg.getCodeAddress());
@@ -1546,6 +1549,7 @@ public class Program {
         Coin endowment = new Coin(msg.getEndowment().getData());
         Coin senderBalance = track.getBalance(senderAddress);
         if (senderBalance.compareTo(endowment) < 0) {
+            track.rollback();
             stackPushZero();
             this.refundGas(msg.getGas().longValue(), "refund gas from message call");
             return;
@@ -1564,6 +1568,7 @@ public class Program {
                     msg.getGas().longValueSafe(),
                     msg.getEndowment().getNoLeadZeroesData());
 
+            track.rollback();
             stackPushOne();
             return;
         }
@@ -164,6 +164,11 @@ public class Storage implements Repository, ProgramListenerAware {
         return repository.startTracking();
     }
 
+    @Override
+    public Repository startNestedTracking() {
+        return repository.startNestedTracking();
+    }
+
     @Override
     public void flush() {
         repository.flush();
@@ -23,6 +23,7 @@ import co.usc.config.VmConfig;
 import co.usc.core.UscAddress;
 import org.ethereum.core.Repository;
 import org.ethereum.db.ContractDetails;
+import org.ethereum.db.NestedRepositoryTrack;
 import org.ethereum.db.RepositoryTrack;
 import org.ethereum.vm.DataWord;
 import org.ethereum.vm.OpCode;
@@ -90,6 +91,8 @@ public class ProgramTrace {
         Repository repository = programInvoke.getRepository();
         if (repository instanceof RepositoryTrack) {
             repository = ((RepositoryTrack) repository).getOriginRepository();
+        } else if (repository instanceof NestedRepositoryTrack) {
+            repository = ((NestedRepositoryTrack) repository).getOriginRepository();
         }
 
         UscAddress addr = new UscAddress(programInvoke.getOwnerAddress());